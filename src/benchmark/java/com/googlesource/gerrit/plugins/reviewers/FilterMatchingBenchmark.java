@@ -0,0 +1,110 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.googlesource.gerrit.plugins.reviewers;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.collect.ImmutableMap;
+import com.google.gerrit.entities.Change;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.index.query.Matchable;
+import com.google.gerrit.index.query.Predicate;
+import com.google.gerrit.server.query.change.ChangeData;
+import com.googlesource.gerrit.plugins.reviewers.config.FilterSnapshot;
+import com.googlesource.gerrit.plugins.reviewers.config.SyntheticFilters;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of matching the filters of a project against a change with {@link
+ * ReviewersFilterUtil}, including the recording of the {@link FilterStats}.
+ *
+ * <p>The change is a mock that only serves its project and files. The complete synthetic filters
+ * never need the query parser; the queries of the incomplete ones are evaluated with the predicates
+ * the change query parser builds for them, which are loaded into the predicate cache instead of
+ * being parsed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FilterMatchingBenchmark {
+  private static final Project.NameKey PROJECT = Project.nameKey("project");
+
+  @Param({"10", "100", "1000", "5000"})
+  int filters;
+
+  @Param({"1", "100", "1000", "10000"})
+  int files;
+
+  @Param({"refs/heads/master", "refs/heads/release/1.0"})
+  String ref;
+
+  /** Whether the filters are decided by the snapshot alone, or their queries are evaluated. */
+  @Param({"true", "false"})
+  boolean complete;
+
+  private FilterSnapshot snapshot;
+  private ChangeData cd;
+  private ReviewersFilterUtil filterUtil;
+
+  @Setup
+  public void setUp() {
+    snapshot =
+        SyntheticFilters.snapshot(
+            PROJECT,
+            complete
+                ? SyntheticFilters.config(filters)
+                : SyntheticFilters.incompleteConfig(filters));
+    ImmutableMap<String, Predicate<ChangeData>> predicates =
+        SyntheticFilters.incompletePredicates(complete ? 0 : filters);
+    cd = mock(ChangeData.class);
+    when(cd.project()).thenReturn(PROJECT);
+    when(cd.currentFilePaths()).thenReturn(SyntheticFilters.files(files));
+    filterUtil =
+        new ReviewersFilterUtil(
+            () -> {
+              throw new UnsupportedOperationException("no query parser in benchmarks");
+            },
+            CacheBuilder.newBuilder()
+                .build(
+                    new CacheLoader<String, Matchable<ChangeData>>() {
+                      @Override
+                      public Matchable<ChangeData> load(String filter) {
+                        return predicates.get(filter).asMatchable();
+                      }
+                    }),
+            new FilterStats(CacheBuilder.newBuilder().build()));
+  }
+
+  @Benchmark
+  public FilterMatches evaluate() throws Exception {
+    return filterUtil.evaluate(cd, snapshot, ref, Change.Status.NEW);
+  }
+}
@@ -0,0 +1,160 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.googlesource.gerrit.plugins.reviewers;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.gerrit.entities.Account;
+import com.google.gerrit.entities.AccountGroup;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import com.google.gerrit.server.account.AccountControl;
+import com.google.gerrit.server.account.GroupControl;
+import com.google.gerrit.server.util.ManualRequestContext;
+import com.google.gerrit.server.util.OneOffRequestContext;
+import com.googlesource.gerrit.plugins.reviewers.IdentifierCache.Identifier;
+import com.googlesource.gerrit.plugins.reviewers.config.GlobalConfig;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of resolving the reviewer and cc identifiers matched for a change with the {@link
+ * ReviewersResolver}.
+ *
+ * <p>The account and group backends are stubbed: identifiers {@code user-<n>} resolve to accounts
+ * and {@code group-<n>} to groups through the {@link IdentifierCache} loader, the expansions of all
+ * groups are preloaded into the {@link GroupMembersCache}, and every account and group is visible.
+ * This measures the resolution as it runs once the caches are warm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ResolverBenchmark {
+  private static final Project.NameKey PROJECT = Project.nameKey("project");
+
+  /** Number of reviewer identifiers; as many groups are configured as ccs. */
+  @Param({"1", "10", "100"})
+  int identifiers;
+
+  @Param({"10", "1000"})
+  int groupSize;
+
+  /** Threads identifiers are resolved on, 0 to resolve them on the calling thread. */
+  @Param({"0", "4"})
+  int resolveThreads;
+
+  private ExecutorService executor;
+  private ReviewersResolver resolver;
+  private ImmutableSet<String> reviewers;
+  private ImmutableSet<String> ccs;
+
+  @Setup
+  public void setUp() throws Exception {
+    ImmutableSet.Builder<String> r = ImmutableSet.builder();
+    ImmutableSet.Builder<String> c = ImmutableSet.builder();
+    for (int i = 0; i < identifiers; i++) {
+      r.add("user-" + i);
+      c.add("group-" + i);
+    }
+    reviewers = r.build();
+    ccs = c.build();
+
+    ReviewersMetrics metrics = new ReviewersMetrics(new DisabledMetricMaker());
+    IdentifierCache identifierCache =
+        new IdentifierCache(
+            CacheBuilder.newBuilder()
+                .build(
+                    new CacheLoader<String, Identifier>() {
+                      @Override
+                      public Identifier load(String name) {
+                        int id = Integer.parseInt(name.substring(name.indexOf('-') + 1));
+                        return name.startsWith("user-")
+                            ? Identifier.account(Account.id(1_000 + id))
+                            : Identifier.group(AccountGroup.uuid(name));
+                      }
+                    }));
+    Cache<AccountGroup.UUID, GroupMembersCache.Members> members = CacheBuilder.newBuilder().build();
+    for (int i = 0; i < identifiers; i++) {
+      ImmutableSet.Builder<Account.Id> accounts = ImmutableSet.builder();
+      for (int k = 0; k < groupSize; k++) {
+        accounts.add(Account.id(100_000 + i * groupSize + k));
+      }
+      ImmutableSet<Account.Id> all = accounts.build();
+      members.put(AccountGroup.uuid("group-" + i), new GroupMembersCache.Members(all, all));
+    }
+    GroupMembersCache groupMembersCache = new GroupMembersCache(members, null, metrics);
+
+    AccountControl accountControl = mock(AccountControl.class);
+    when(accountControl.canSee(any(Account.Id.class))).thenReturn(true);
+    AccountControl.Factory accountControlFactory = mock(AccountControl.Factory.class);
+    when(accountControlFactory.get()).thenReturn(accountControl);
+    GroupControl groupControl = mock(GroupControl.class);
+    when(groupControl.isVisible()).thenReturn(true);
+    GroupControl.Factory groupControlFactory = mock(GroupControl.Factory.class);
+    when(groupControlFactory.controlFor(any(AccountGroup.UUID.class))).thenReturn(groupControl);
+    OneOffRequestContext requestContext = mock(OneOffRequestContext.class);
+    when(requestContext.open()).thenReturn(mock(ManualRequestContext.class));
+    GlobalConfig config = mock(GlobalConfig.class);
+    when(config.resolveTimeout()).thenReturn(Duration.ofMinutes(1));
+
+    executor =
+        resolveThreads > 0
+            ? Executors.newFixedThreadPool(resolveThreads)
+            : MoreExecutors.newDirectExecutorService();
+    resolver =
+        new ReviewersResolver(
+            identifierCache,
+            groupMembersCache,
+            () -> accountControlFactory,
+            () -> groupControlFactory,
+            requestContext,
+            executor,
+            config,
+            metrics);
+  }
+
+  @TearDown
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Benchmark
+  public ReviewersResolver.Result resolve() {
+    return resolver.resolve(reviewers, ccs, PROJECT, 1, null, true);
+  }
+}
@@ -0,0 +1,101 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers.config;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gerrit.entities.Change;
+import com.google.gerrit.entities.Project;
+import com.googlesource.gerrit.plugins.reviewers.ReviewerFilter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jgit.lib.Config;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of building the runtime and the editable representations of reviewers.config, and of
+ * the lookups the {@link FilterSnapshot} serves for every change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FilterSnapshotBenchmark {
+  private static final Project.NameKey PROJECT = Project.nameKey("project");
+
+  @Param({"10", "100", "1000", "5000"})
+  int filters;
+
+  private Config cfg;
+  private FilterSnapshot snapshot;
+  private ReviewersQueryValidator validator;
+
+  /** The files of a change, only a parameter of the benchmarks that match files. */
+  @State(Scope.Benchmark)
+  public static class Files {
+    @Param({"1", "100", "1000", "10000"})
+    int files;
+
+    ImmutableList<String> paths;
+
+    @Setup
+    public void setUp() {
+      paths = SyntheticFilters.files(files);
+    }
+  }
+
+  @Setup
+  public void setUp() {
+    cfg = SyntheticFilters.config(filters);
+    snapshot = SyntheticFilters.snapshot(PROJECT, cfg);
+    // Queries are validated by the change query parser, which needs a running server.
+    validator =
+        new ReviewersQueryValidator(null) {
+          @Override
+          void validateQuery(String query) {}
+        };
+  }
+
+  @Benchmark
+  public FilterSnapshot createSnapshot() {
+    return FilterSnapshot.create(PROJECT, cfg);
+  }
+
+  @Benchmark
+  public ImmutableList<CompiledFilter> candidates() {
+    return snapshot.candidates("refs/heads/master", Change.Status.NEW);
+  }
+
+  @Benchmark
+  public FilePatternMatcher.Result matchFiles(Files change) {
+    return snapshot.matchFiles(change.paths);
+  }
+
+  @Benchmark
+  public List<ReviewerFilter> createFilterCollection() {
+    return new ReviewerFilterCollection(validator, cfg).getAll();
+  }
+}
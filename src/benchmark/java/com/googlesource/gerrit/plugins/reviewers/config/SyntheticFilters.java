@@ -0,0 +1,133 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers.config;
+
+import static com.googlesource.gerrit.plugins.reviewers.config.ForProject.KEY_CC;
+import static com.googlesource.gerrit.plugins.reviewers.config.ForProject.KEY_REVIEWER;
+import static com.googlesource.gerrit.plugins.reviewers.config.ForProject.SECTION_FILTER;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.index.query.Predicate;
+import com.google.gerrit.server.query.change.ChangeData;
+import com.google.gerrit.server.query.change.RegexPathPredicate;
+import org.eclipse.jgit.lib.Config;
+
+/**
+ * Synthetic reviewers.config and changes for the benchmarks.
+ *
+ * <p>The filters combine the {@code branch:} and {@code file:^<prefix>.*} conditions that are
+ * decided by the {@link FilterSnapshot} alone, so that no change index or query parser is needed
+ * to match them. The incomplete filters also exclude files, which the snapshot can't decide, and
+ * come with the predicates the change query parser builds for them. Reviewers are named {@code
+ * user-<n>} and ccs {@code group-<n>}.
+ */
+public final class SyntheticFilters {
+  /** Number of distinct top-level directories the filters and files are spread over. */
+  public static final int DIRECTORIES = 1_000;
+
+  public static final int USERS = 100;
+  public static final int GROUPS = 10;
+
+  /**
+   * Create a reviewers.config with the given number of filters. A quarter of the filters each
+   * match files of a directory, are constrained to a stable branch, match files of a directory on
+   * release branches, and match test files of a directory on master.
+   */
+  public static Config config(int filters) {
+    Config cfg = new Config();
+    for (int i = 0; i < filters; i++) {
+      String dir = "dir" + (i % DIRECTORIES);
+      String filter;
+      switch (i % 4) {
+        case 0:
+          filter = "file:^" + dir + "/.*";
+          break;
+        case 1:
+          filter = "branch:stable-" + i;
+          break;
+        case 2:
+          filter = "branch:^release/.* file:^" + dir + "/src/" + i + "/.*";
+          break;
+        default:
+          filter = "branch:master file:^" + dir + "/test/" + i + "/.*";
+          break;
+      }
+      cfg.setString(SECTION_FILTER, filter, KEY_REVIEWER, "user-" + (i % USERS));
+      cfg.setString(SECTION_FILTER, filter, KEY_CC, "group-" + (i % GROUPS));
+    }
+    return cfg;
+  }
+
+  /**
+   * Create a reviewers.config with the given number of filters that the {@link FilterSnapshot}
+   * can't decide alone: every filter matches the files of a directory, except some of its tests, so
+   * that the query of every filter whose directory has files in the change is evaluated.
+   */
+  public static Config incompleteConfig(int filters) {
+    Config cfg = new Config();
+    for (int i = 0; i < filters; i++) {
+      cfg.setString(SECTION_FILTER, incompleteFilter(i), KEY_REVIEWER, "user-" + (i % USERS));
+      cfg.setString(SECTION_FILTER, incompleteFilter(i), KEY_CC, "group-" + (i % GROUPS));
+    }
+    return cfg;
+  }
+
+  /**
+   * Create the predicates of the filters of {@link #incompleteConfig}, as the change query parser
+   * builds them, by filter.
+   */
+  public static ImmutableMap<String, Predicate<ChangeData>> incompletePredicates(int filters) {
+    ImmutableMap.Builder<String, Predicate<ChangeData>> predicates = ImmutableMap.builder();
+    for (int i = 0; i < filters; i++) {
+      predicates.put(
+          incompleteFilter(i),
+          Predicate.and(
+              new RegexPathPredicate("^" + directory(i) + "/.*"),
+              Predicate.not(new RegexPathPredicate(excludedTests(i)))));
+    }
+    return predicates.build();
+  }
+
+  private static String incompleteFilter(int i) {
+    return "file:^" + directory(i) + "/.* -file:" + excludedTests(i);
+  }
+
+  private static String excludedTests(int i) {
+    return "^" + directory(i) + "/test/" + i + "/.*";
+  }
+
+  private static String directory(int i) {
+    return "dir" + (i % DIRECTORIES);
+  }
+
+  /** Build the runtime representation of a config, as the {@link FilterSnapshotCache} does. */
+  public static FilterSnapshot snapshot(Project.NameKey project, Config cfg) {
+    return FilterSnapshot.create(project, cfg);
+  }
+
+  /** Create the paths of the files of a change, spread over all directories. */
+  public static ImmutableList<String> files(int files) {
+    ImmutableList.Builder<String> paths = ImmutableList.builderWithExpectedSize(files);
+    for (int i = 0; i < files; i++) {
+      String dir = "dir" + (i % DIRECTORIES) + (i % 2 == 0 ? "/src/" : "/test/") + i;
+      paths.add(dir + "/File" + i + ".java");
+    }
+    return paths.build();
+  }
+
+  private SyntheticFilters() {}
+}
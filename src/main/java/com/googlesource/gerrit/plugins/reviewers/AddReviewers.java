@@ -14,100 +14,398 @@
 
 package com.googlesource.gerrit.plugins.reviewers;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Sets;
 import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.common.Nullable;
 import com.google.gerrit.entities.Account;
-import com.google.gerrit.extensions.api.GerritApi;
-import com.google.gerrit.extensions.api.changes.ReviewInput;
+import com.google.gerrit.entities.Change;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.exceptions.StorageException;
+import com.google.gerrit.extensions.api.changes.NotifyHandling;
 import com.google.gerrit.extensions.api.changes.ReviewerInput;
 import com.google.gerrit.extensions.client.ReviewerState;
-import com.google.gerrit.extensions.common.ChangeInfo;
+import com.google.gerrit.extensions.common.AccountInfo;
 import com.google.gerrit.extensions.restapi.RestApiException;
+import com.google.gerrit.index.query.QueryParseException;
+import com.google.gerrit.metrics.Timer0;
+import com.google.gerrit.server.IdentifiedUser;
+import com.google.gerrit.server.change.ModifyReviewersEmail;
+import com.google.gerrit.server.change.NotifyResolver;
+import com.google.gerrit.server.change.ReviewerModifier;
+import com.google.gerrit.server.change.ReviewerModifier.ReviewerModification;
+import com.google.gerrit.server.permissions.PermissionBackendException;
+import com.google.gerrit.server.query.change.ChangeData;
+import com.google.gerrit.server.update.BatchUpdate;
+import com.google.gerrit.server.update.UpdateException;
 import com.google.gerrit.server.util.ManualRequestContext;
 import com.google.gerrit.server.util.OneOffRequestContext;
+import com.google.gerrit.server.util.time.TimeUtil;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
+import com.googlesource.gerrit.plugins.reviewers.config.CompiledFilter;
+import com.googlesource.gerrit.plugins.reviewers.config.FilterSnapshot;
+import com.googlesource.gerrit.plugins.reviewers.config.FilterSnapshotCache;
+import com.googlesource.gerrit.plugins.reviewers.config.GlobalConfig;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import org.eclipse.jgit.errors.ConfigInvalidException;
 
-/** Adds reviewers to a change. */
+/**
+ * Adds reviewers to the changes of a project that an uploader created or updated.
+ *
+ * <p>The task only holds the keys of the changes. The changes are loaded when the task runs, and
+ * the filters are matched against their latest state, so that all of the work is done off the
+ * thread that handled the events.
+ *
+ * <p>The changes of a task, like the changes of a series pushed at once, share the filter snapshot
+ * and the resolution of the identifiers of the filters they match, and the reviewers of all
+ * changes of the same owner are added in a single {@link BatchUpdate}.
+ */
 class AddReviewers implements Runnable {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
-  private final GerritApi gApi;
   private final OneOffRequestContext requestContext;
-  private final ChangeInfo changeInfo;
-  private final Set<Account.Id> reviewers;
-  private final Set<Account.Id> ccs;
+  private final IdentifiedUser.GenericFactory identifiedUserFactory;
+  private final BatchUpdate.Factory batchUpdateFactory;
+  private final ReviewerModifier reviewerModifier;
+  private final ModifyReviewersEmail modifyReviewersEmail;
+  private final ChangeData.Factory changeDataFactory;
+  private final FilterSnapshotCache filters;
+  private final ReviewersFilterUtil filterUtil;
+  private final ReviewersResolver resolver;
+  private final GlobalConfig config;
+  private final ReviewersMetrics metrics;
+  private final Project.NameKey project;
+  @Nullable private final Account.Id uploader;
+  private final ImmutableSet<Change.Id> changes;
 
   interface Factory {
     AddReviewers create(
-        ChangeInfo changeInfo,
-        @Assisted("reviewers") Set<Account.Id> reviewers,
-        @Assisted("ccs") Set<Account.Id> ccs);
+        Project.NameKey project, @Nullable Account.Id uploader, Collection<Change.Id> changes);
   }
 
   @Inject
   AddReviewers(
-      GerritApi gApi,
       OneOffRequestContext requestContext,
-      @Assisted ChangeInfo changeInfo,
-      @Assisted("reviewers") Set<Account.Id> reviewers,
-      @Assisted("ccs") Set<Account.Id> ccs) {
-    this.gApi = gApi;
+      IdentifiedUser.GenericFactory identifiedUserFactory,
+      BatchUpdate.Factory batchUpdateFactory,
+      ReviewerModifier reviewerModifier,
+      ModifyReviewersEmail modifyReviewersEmail,
+      ChangeData.Factory changeDataFactory,
+      FilterSnapshotCache filters,
+      ReviewersFilterUtil filterUtil,
+      ReviewersResolver resolver,
+      GlobalConfig config,
+      ReviewersMetrics metrics,
+      @Assisted Project.NameKey project,
+      @Assisted @Nullable Account.Id uploader,
+      @Assisted Collection<Change.Id> changes) {
     this.requestContext = requestContext;
-    this.changeInfo = changeInfo;
-    this.reviewers = reviewers;
-    this.ccs = ccs;
+    this.identifiedUserFactory = identifiedUserFactory;
+    this.batchUpdateFactory = batchUpdateFactory;
+    this.reviewerModifier = reviewerModifier;
+    this.modifyReviewersEmail = modifyReviewersEmail;
+    this.changeDataFactory = changeDataFactory;
+    this.filters = filters;
+    this.filterUtil = filterUtil;
+    this.resolver = resolver;
+    this.config = config;
+    this.metrics = metrics;
+    this.project = project;
+    this.uploader = uploader;
+    this.changes = ImmutableSet.copyOf(changes);
   }
 
   @Override
   public void run() {
+    @SuppressWarnings("unused")
+    ImmutableSet<Change.Id> ignored = process();
+  }
+
+  /**
+   * Add the reviewers to the changes.
+   *
+   * @return the changes whose reviewers could not be added due to a possibly transient error, and
+   *     may be processed again.
+   */
+  ImmutableSet<Change.Id> process() {
+    try (Timer0.Context ctx = metrics.addLatency.start()) {
+      return processChanges();
+    }
+  }
+
+  private ImmutableSet<Change.Id> processChanges() {
+    FilterSnapshot snapshot = filters.get(project);
+    if (snapshot.isEmpty()) {
+      return ImmutableSet.of();
+    }
+    Set<Change.Id> failed = new HashSet<>();
+    ListMultimap<Account.Id, Update> updatesByOwner = LinkedListMultimap.create();
+    // Filters are matched and identifiers resolved in the context of the uploader, as if it was
+    // done when the events were handled.
     try (ManualRequestContext ctx =
-        requestContext.openAs(Account.id(changeInfo.owner._accountId))) {
-      addReviewers();
+        uploader != null ? requestContext.openAs(uploader) : requestContext.open()) {
+      Map<ImmutableList<CompiledFilter>, ReviewersResolver.Result> resolved = new HashMap<>();
+      for (Change.Id changeId : changes) {
+        try {
+          Update update = prepare(snapshot, changeId, resolved);
+          if (update != null) {
+            updatesByOwner.put(update.change.getOwner(), update);
+          }
+        } catch (QueryParseException e) {
+          logger.atWarning().log(
+              "Could not add default reviewers for change %d of project %s, filter is invalid: %s",
+              changeId.get(), project.get(), e.getMessage());
+        } catch (StorageException x) {
+          logger.atSevere().withCause(x).log("%s", x.getMessage());
+          failed.add(changeId);
+        }
+      }
+    }
+    for (Account.Id owner : updatesByOwner.keySet()) {
+      addReviewers(owner, updatesByOwner.get(owner), failed);
+    }
+    return ImmutableSet.copyOf(failed);
+  }
+
+  Project.NameKey project() {
+    return project;
+  }
+
+  @Nullable
+  Account.Id uploader() {
+    return uploader;
+  }
+
+  ImmutableSet<Change.Id> changes() {
+    return changes;
+  }
+
+  @Override
+  public String toString() {
+    if (changes.size() == 1) {
+      return String.format(
+          "Add reviewers to change %d of project %s",
+          changes.iterator().next().get(), project.get());
+    }
+    return String.format(
+        "Add reviewers to %d changes of project %s", changes.size(), project.get());
+  }
+
+  /* Returns the accounts missing on the change, or null if there are none. */
+  @Nullable
+  private Update prepare(
+      FilterSnapshot snapshot,
+      Change.Id changeId,
+      Map<ImmutableList<CompiledFilter>, ReviewersResolver.Result> resolved)
+      throws QueryParseException {
+    ChangeData cd = changeDataFactory.create(project, changeId);
+    Change change = cd.change();
+    if (!isEligible(change)) {
+      return null;
+    }
+    FilterMatches matches;
+    try (Timer0.Context ctx = metrics.matchLatency.start()) {
+      matches = filterUtil.evaluate(cd, snapshot);
+    }
+    if (matches.isEmpty()) {
+      return null;
+    }
+    // This task is run after a revision was created to add reviewers
+    // according to the configs that project owners provided. Respecting
+    // account visibility here by checking if the caller (e.g. the user adding
+    // a new revision) can see the reviewer to be added does not make sense.
+    ReviewersResolver.Result accounts = resolved.get(matches.filters());
+    if (accounts == null) {
+      accounts =
+          resolver.resolve(
+              matches,
+              project,
+              changeId.get(),
+              uploader != null ? new AccountInfo(uploader.get()) : null,
+              true);
+      /* A sample is specific to the change. */
+      if (!accounts.sampled()) {
+        resolved.put(matches.filters(), accounts);
+      }
     }
+
+    /* Don't add, or change state of, already existing reviewers. */
+    Set<Account.Id> existingReviewers = cd.reviewers().all();
+    Set<Account.Id> reviewersToAdd = Sets.difference(accounts.reviewers(), existingReviewers);
+    /* If account is already configured to be added as reviewer, don't attempt to add as cc. */
+    Set<Account.Id> ccsToAdd =
+        Sets.difference(Sets.difference(accounts.ccs(), existingReviewers), reviewersToAdd);
+    if (reviewersToAdd.isEmpty() && ccsToAdd.isEmpty()) {
+      return null;
+    }
+    return new Update(cd, change, reviewersToAdd, ccsToAdd);
   }
 
-  private void addReviewers() {
-    try {
-      // TODO(davido): Switch back to using changes API again,
-      // when it supports batch mode for adding reviewers
-      Set<Account.Id> existingReviewers =
-          gApi.changes().id(changeInfo._number).reviewers().stream()
-              .map(r -> Account.id(r._accountId))
-              .collect(Collectors.toSet());
-      /* Don't add, or change state of, already existing reviewers. */
-      Set<Account.Id> reviewersToAdd =
-          reviewers.stream()
-              .filter(r -> !existingReviewers.contains(r))
-              .collect(Collectors.toSet());
-      /* If account is already configured to be added as reviewer, don't attempt to add as cc. */
-      Set<Account.Id> ccsToAdd =
-          ccs.stream()
-              .filter(c -> !existingReviewers.contains(c))
-              .filter(r -> !reviewersToAdd.contains(r))
-              .collect(Collectors.toSet());
-      if (reviewersToAdd.isEmpty() && ccsToAdd.isEmpty()) {
+  /* The change may have changed since the event was fired. */
+  private boolean isEligible(Change change) {
+    /* Never add reviewers automatically to private changes. */
+    if (change.isPrivate()) {
+      return false;
+    }
+    if (config.ignoreWip() && change.isWorkInProgress()) {
+      return false;
+    }
+    return change.getStatus() != Change.Status.MERGED;
+  }
+
+  private void addReviewers(Account.Id ownerId, List<Update> updates, Set<Change.Id> failed) {
+    try (ManualRequestContext ctx = requestContext.openAs(ownerId)) {
+      IdentifiedUser owner = identifiedUserFactory.create(ownerId);
+      try {
+        execute(owner, updates);
+      } catch (UpdateException | RestApiException | StorageException e) {
+        if (updates.size() == 1) {
+          throw e;
+        }
+        /* Don't let a single change prevent adding reviewers to the others. */
+        logger.atWarning().withCause(e).log(
+            "Couldn't add reviewers to %d changes of project %s at once, retrying one by one",
+            updates.size(), project.get());
+        for (Update update : updates) {
+          try {
+            Update reloaded = update.reload();
+            if (reloaded != null) {
+              execute(owner, ImmutableList.of(reloaded));
+            }
+          } catch (UpdateException | RestApiException | StorageException x) {
+            logger.atSevere().withCause(x).log(
+                "Couldn't add reviewers to change %d of project %s",
+                update.change.getChangeId(), project.get());
+            failed.add(update.change.getId());
+          }
+        }
+      }
+    } catch (IOException
+        | ConfigInvalidException
+        | PermissionBackendException
+        | UpdateException
+        | RestApiException
+        | StorageException e) {
+      logger.atSevere().withCause(e).log("Couldn't add reviewers to the change");
+      updates.forEach(u -> failed.add(u.change.getId()));
+    }
+  }
+
+  private void execute(IdentifiedUser owner, List<Update> updates)
+      throws IOException,
+          ConfigInvalidException,
+          PermissionBackendException,
+          UpdateException,
+          RestApiException {
+    List<Update> prepared = new ArrayList<>(updates.size());
+    try (BatchUpdate bu = batchUpdateFactory.create(project, owner, TimeUtil.now())) {
+      for (Update update : updates) {
+        if (update.addOps(bu, owner)) {
+          prepared.add(update);
+        }
+      }
+      if (prepared.isEmpty()) {
         return;
       }
+      bu.execute();
+    }
+    /* Notify about all reviewers added to a change at once, as posting a review would: only the
+     * owner if the change is work in progress. */
+    for (Update update : prepared) {
+      NotifyResolver.Result notify =
+          update.change.isWorkInProgress()
+              ? NotifyResolver.Result.create(NotifyHandling.OWNER)
+              : NotifyResolver.Result.all();
+      modifyReviewersEmail.emailReviewersAsync(
+          owner,
+          update.change,
+          update.added,
+          update.copied,
+          ImmutableList.of(),
+          ImmutableList.of(),
+          ImmutableList.of(),
+          ImmutableList.of(),
+          notify);
+    }
+  }
+
+  /* The accounts to add to a change. */
+  private class Update {
+    private final ChangeData cd;
+    private final Change change;
+    private final Set<Account.Id> reviewers;
+    private final Set<Account.Id> ccs;
+    private final List<Account.Id> added = new ArrayList<>();
+    private final List<Account.Id> copied = new ArrayList<>();
+
+    Update(ChangeData cd, Change change, Set<Account.Id> reviewers, Set<Account.Id> ccs) {
+      this.cd = cd;
+      this.change = change;
+      this.reviewers = reviewers;
+      this.ccs = ccs;
+    }
+
+    /* The batch may have failed after some of its changes were updated. Returns the update of the
+     * change loaded again, with only the accounts that are still missing, or null if there are
+     * none. The accounts added by the failed batch are not notified. */
+    @Nullable
+    Update reload() {
+      ChangeData reloaded = changeDataFactory.create(project, change.getId());
+      Set<Account.Id> existing = reloaded.reviewers().all();
+      Set<Account.Id> missingReviewers = Sets.difference(reviewers, existing).immutableCopy();
+      Set<Account.Id> missingCcs = Sets.difference(ccs, existing).immutableCopy();
+      if (missingReviewers.isEmpty() && missingCcs.isEmpty()) {
+        return null;
+      }
+      return new Update(reloaded, reloaded.change(), missingReviewers, missingCcs);
+    }
 
-      ReviewInput in = new ReviewInput();
-      in.reviewers = new ArrayList<>(reviewers.size() + ccs.size());
-      for (Account.Id account : reviewersToAdd) {
-        ReviewerInput addReviewerInput = new ReviewerInput();
-        addReviewerInput.reviewer = account.toString();
-        in.reviewers.add(addReviewerInput);
+    /* Returns whether any op was added. */
+    boolean addOps(BatchUpdate bu, IdentifiedUser owner)
+        throws IOException, ConfigInvalidException, PermissionBackendException {
+      added.clear();
+      copied.clear();
+      for (Account.Id account : reviewers) {
+        if (addOp(bu, owner, account, ReviewerState.REVIEWER)) {
+          added.add(account);
+        }
       }
-      for (Account.Id account : ccsToAdd) {
-        ReviewerInput input = new ReviewerInput();
-        input.state = ReviewerState.CC;
-        input.reviewer = account.toString();
-        in.reviewers.add(input);
+      for (Account.Id account : ccs) {
+        if (addOp(bu, owner, account, ReviewerState.CC)) {
+          copied.add(account);
+        }
       }
-      gApi.changes().id(changeInfo._number).current().review(in);
-    } catch (RestApiException e) {
-      logger.atSevere().withCause(e).log("Couldn't add reviewers to the change");
+      return !added.isEmpty() || !copied.isEmpty();
+    }
+
+    private boolean addOp(
+        BatchUpdate bu, IdentifiedUser owner, Account.Id account, ReviewerState state)
+        throws IOException, ConfigInvalidException, PermissionBackendException {
+      ReviewerInput input = new ReviewerInput();
+      input.reviewer = account.toString();
+      input.state = state;
+      ReviewerModification modification =
+          reviewerModifier.prepare(cd.notes(), owner, input, false);
+      if (modification.result.error != null) {
+        logger.atWarning().log(
+            "Couldn't add %s to change %d of project %s: %s",
+            account, change.getChangeId(), project.get(), modification.result.error);
+        return false;
+      }
+      modification.op.suppressEmail();
+      bu.addOp(change.getId(), modification.op);
+      return true;
     }
   }
 }
@@ -0,0 +1,86 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.googlesource.gerrit.plugins.reviewers.config.CompiledFilter;
+
+/**
+ * The filters matching a change, together with the reviewer and cc identifiers
+ * (account or group names) they configure. Identifiers configured as both reviewer and cc are only
+ * contained in the reviewers, as reviewer takes precedence.
+ */
+public class FilterMatches {
+  static final FilterMatches NONE =
+      new FilterMatches(ImmutableList.of(), ImmutableSet.of(), ImmutableSet.of(), false);
+
+  private final ImmutableList<CompiledFilter> filters;
+  private final ImmutableSet<String> reviewers;
+  private final ImmutableSet<String> ccs;
+  private final boolean dependsOnUser;
+
+  private FilterMatches(
+      ImmutableList<CompiledFilter> filters,
+      ImmutableSet<String> reviewers,
+      ImmutableSet<String> ccs,
+      boolean dependsOnUser) {
+    this.filters = filters;
+    this.reviewers = reviewers;
+    this.ccs = ccs;
+    this.dependsOnUser = dependsOnUser;
+  }
+
+  static FilterMatches of(ImmutableList<CompiledFilter> filters, boolean dependsOnUser) {
+    if (filters.isEmpty() && !dependsOnUser) {
+      return NONE;
+    }
+    ImmutableSet.Builder<String> reviewers = ImmutableSet.builder();
+    ImmutableSet.Builder<String> ccs = ImmutableSet.builder();
+    for (CompiledFilter f : filters) {
+      reviewers.addAll(f.reviewers());
+      ccs.addAll(f.ccs());
+    }
+    ImmutableSet<String> r = reviewers.build();
+    return new FilterMatches(
+        filters, r, Sets.difference(ccs.build(), r).immutableCopy(), dependsOnUser);
+  }
+
+  public ImmutableList<CompiledFilter> filters() {
+    return filters;
+  }
+
+  public ImmutableSet<String> reviewers() {
+    return reviewers;
+  }
+
+  public ImmutableSet<String> ccs() {
+    return ccs;
+  }
+
+  /**
+   * Whether a filter whose result depends on the current user, like {@code owner:self}, or on the
+   * current time, like {@code age:1d}, was evaluated, so that the matches may differ for another
+   * user or later on.
+   */
+  public boolean dependsOnUser() {
+    return dependsOnUser;
+  }
+
+  public boolean isEmpty() {
+    return reviewers.isEmpty() && ccs.isEmpty();
+  }
+}
@@ -0,0 +1,201 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers;
+
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.cache.CacheModule;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.googlesource.gerrit.plugins.reviewers.config.CompiledFilter;
+import com.googlesource.gerrit.plugins.reviewers.config.FilterSnapshot;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-filter cost and hit statistics of the evaluations of {@link ReviewersFilterUtil}, kept in
+ * memory since the plugin was loaded or the statistics of the project were reset.
+ *
+ * <p>Statistics are recorded for the project of the evaluated change, so that inherited filters
+ * are accounted to each of the projects they are evaluated for. They are held in the {@code
+ * filter_stats} cache, weighted by the number of filters of the projects, so that the statistics
+ * of the projects that were least recently evaluated are dropped. The statistics of filters that
+ * are no longer configured are dropped once the filters of the project are loaded again.
+ */
+@Singleton
+class FilterStats {
+  static final String CACHE_NAME = "filter_stats";
+
+  static Module module() {
+    return new CacheModule() {
+      @Override
+      protected void configure() {
+        cache(CACHE_NAME, Project.NameKey.class, ProjectStats.class)
+            .maximumWeight(100_000)
+            .weigher(ProjectStatsWeigher.class);
+      }
+    };
+  }
+
+  /** Statistics of a filter, as returned by {@code GET /projects/{name}/reviewers~stats}. */
+  static class FilterStatsInfo {
+    public String filter;
+    public long evaluations;
+    public long matches;
+    public long totalMicros;
+    public long maxMicros;
+    public Timestamp lastMatched;
+  }
+
+  private final Cache<Project.NameKey, ProjectStats> projects;
+
+  @Inject
+  FilterStats(@Named(CACHE_NAME) Cache<Project.NameKey, ProjectStats> projects) {
+    this.projects = projects;
+  }
+
+  /**
+   * Get the statistics to record the evaluations of the filters of a project in, once for all
+   * filters evaluated against a change.
+   *
+   * @param project the project of the change the filters are evaluated for
+   * @param snapshot the filters of the project the filters are evaluated from
+   * @return the statistics of the project
+   */
+  ProjectStats of(Project.NameKey project, FilterSnapshot snapshot) {
+    ProjectStats stats;
+    try {
+      stats = projects.get(project, () -> new ProjectStats(snapshot));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+    stats.prune(snapshot);
+    return stats;
+  }
+
+  /**
+   * Get the statistics of the filters of a project. Statistics of filters that are no longer
+   * configured are dropped.
+   *
+   * @param project the project
+   * @param filters the filters that currently apply to the project, local and inherited
+   * @return the statistics of the filters, in the order of {@code filters}
+   */
+  ImmutableList<FilterStatsInfo> get(Project.NameKey project, Iterable<CompiledFilter> filters) {
+    ProjectStats stats = projects.getIfPresent(project);
+    ConcurrentMap<String, Counters> counters =
+        stats != null ? stats.counters : new ConcurrentHashMap<>();
+    Set<String> configured = new HashSet<>();
+    ImmutableList.Builder<FilterStatsInfo> result = ImmutableList.builder();
+    for (CompiledFilter f : filters) {
+      if (!configured.add(f.filter())) {
+        continue;
+      }
+      FilterStatsInfo info = new FilterStatsInfo();
+      info.filter = f.filter();
+      Counters c = counters.get(f.filter());
+      if (c != null) {
+        info.evaluations = c.evaluations.sum();
+        info.matches = c.matches.sum();
+        info.totalMicros = TimeUnit.NANOSECONDS.toMicros(c.totalNanos.sum());
+        info.maxMicros = TimeUnit.NANOSECONDS.toMicros(c.maxNanos.get());
+        info.lastMatched = c.lastMatched > 0 ? new Timestamp(c.lastMatched) : null;
+      }
+      result.add(info);
+    }
+    counters.keySet().retainAll(configured);
+    return result.build();
+  }
+
+  /** Reset the statistics of the filters of a project. */
+  void reset(Project.NameKey project) {
+    projects.invalidate(project);
+  }
+
+  /* The counters of the filters of a project, and the snapshot of the filters they were last
+   * recorded for. Counters of filters that are not part of a new snapshot are dropped. */
+  static class ProjectStats {
+    private final ConcurrentMap<String, Counters> counters = new ConcurrentHashMap<>();
+    private final int size;
+    private volatile FilterSnapshot snapshot;
+
+    ProjectStats(FilterSnapshot snapshot) {
+      this.snapshot = snapshot;
+      this.size = snapshot.size();
+    }
+
+    /**
+     * Record an evaluation of a filter.
+     *
+     * @param filter the evaluated filter
+     * @param matched whether the filter matched the change
+     * @param nanos the time the evaluation took
+     */
+    void record(CompiledFilter filter, boolean matched, long nanos) {
+      Counters c = counters.computeIfAbsent(filter.filter(), f -> new Counters());
+      c.evaluations.increment();
+      c.totalNanos.add(nanos);
+      c.maxNanos.accumulate(nanos);
+      if (matched) {
+        c.matches.increment();
+        c.lastMatched = System.currentTimeMillis();
+      }
+    }
+
+    private void prune(FilterSnapshot current) {
+      if (current != snapshot) {
+        synchronized (this) {
+          if (current != snapshot) {
+            Set<String> configured =
+                current.filters().stream().map(CompiledFilter::filter).collect(toImmutableSet());
+            counters.keySet().retainAll(configured);
+            snapshot = current;
+          }
+        }
+      }
+    }
+  }
+
+  static class ProjectStatsWeigher implements Weigher<Project.NameKey, ProjectStats> {
+    @Override
+    public int weigh(Project.NameKey project, ProjectStats stats) {
+      return 1 + stats.size;
+    }
+  }
+
+  private static class Counters {
+    final LongAdder evaluations = new LongAdder();
+    final LongAdder matches = new LongAdder();
+    final LongAdder totalNanos = new LongAdder();
+    final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    volatile long lastMatched;
+  }
+}
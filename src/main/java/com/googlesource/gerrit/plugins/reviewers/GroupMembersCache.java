@@ -0,0 +1,138 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.gerrit.entities.Account;
+import com.google.gerrit.entities.AccountGroup;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.exceptions.StorageException;
+import com.google.gerrit.server.account.GroupMembers;
+import com.google.gerrit.server.cache.CacheModule;
+import com.google.gerrit.server.group.SystemGroupBackend;
+import com.google.gerrit.server.project.NoSuchProjectException;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Cache of the accounts that groups configured in reviewers.config expand to, including the
+ * members of nested groups.
+ */
+@Singleton
+class GroupMembersCache {
+  static final String CACHE_NAME = "group_members";
+
+  static Module module() {
+    return new CacheModule() {
+      @Override
+      protected void configure() {
+        cache(CACHE_NAME, AccountGroup.UUID.class, Members.class)
+            .maximumWeight(200_000)
+            .weigher(MembersWeigher.class)
+            .expireAfterWrite(Duration.ofMinutes(15));
+      }
+    };
+  }
+
+  private final Cache<AccountGroup.UUID, Members> cache;
+  private final GroupMembers groupMembers;
+  private final ReviewersMetrics metrics;
+
+  @Inject
+  GroupMembersCache(
+      @Named(CACHE_NAME) Cache<AccountGroup.UUID, Members> cache,
+      GroupMembers groupMembers,
+      ReviewersMetrics metrics) {
+    this.cache = cache;
+    this.groupMembers = groupMembers;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Get the active members of a group.
+   *
+   * @param group the group to expand
+   * @param project the project whose owners the Project Owners group expands to
+   * @return the active member accounts of the group and its nested groups
+   */
+  ImmutableSet<Account.Id> activeMembers(AccountGroup.UUID group, Project.NameKey project)
+      throws NoSuchProjectException, IOException {
+    if (SystemGroupBackend.PROJECT_OWNERS.equals(group)) {
+      return load(group, project).active;
+    }
+    try {
+      return cache.get(group, () -> load(group, project)).active;
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), NoSuchProjectException.class);
+      Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new StorageException(e.getCause());
+    }
+  }
+
+  /* Group memberships may be nested, so an update of any group can change the expansion of any
+   * other group. */
+  void evictAll() {
+    cache.invalidateAll();
+  }
+
+  /* Evicts the groups the account is a member of, active or not, as its active state may have
+   * changed. */
+  void evict(Account.Id account) {
+    cache.asMap().values().removeIf(m -> m.all.contains(account));
+  }
+
+  private Members load(AccountGroup.UUID group, Project.NameKey project)
+      throws NoSuchProjectException, IOException {
+    Set<Account> accounts = groupMembers.listAccounts(group, project);
+    metrics.groupSize.record(accounts.size());
+    ImmutableSet.Builder<Account.Id> all = ImmutableSet.builderWithExpectedSize(accounts.size());
+    ImmutableSet.Builder<Account.Id> active = ImmutableSet.builderWithExpectedSize(accounts.size());
+    for (Account a : accounts) {
+      all.add(a.id());
+      if (a.isActive()) {
+        active.add(a.id());
+      }
+    }
+    return new Members(all.build(), active.build());
+  }
+
+  static class Members {
+    private final ImmutableSet<Account.Id> all;
+    private final ImmutableSet<Account.Id> active;
+
+    Members(ImmutableSet<Account.Id> all, ImmutableSet<Account.Id> active) {
+      this.all = all;
+      this.active = active;
+    }
+  }
+
+  static class MembersWeigher implements Weigher<AccountGroup.UUID, Members> {
+    @Override
+    public int weigh(AccountGroup.UUID group, Members members) {
+      return 1 + members.all.size();
+    }
+  }
+}
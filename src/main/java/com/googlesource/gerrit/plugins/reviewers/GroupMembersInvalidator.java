@@ -0,0 +1,56 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers;
+
+import com.google.gerrit.entities.Account;
+import com.google.gerrit.entities.AccountGroup;
+import com.google.gerrit.extensions.events.AccountIndexedListener;
+import com.google.gerrit.extensions.events.GroupIndexedListener;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Evicts resolved identifiers from the {@link IdentifierCache}, expanded groups from the {@link
+ * GroupMembersCache} and the suggestions that use them from the {@link SuggestionCache} when
+ * groups or accounts change.
+ */
+@Singleton
+class GroupMembersInvalidator implements GroupIndexedListener, AccountIndexedListener {
+  private final IdentifierCache identifiers;
+  private final GroupMembersCache groupMembers;
+  private final SuggestionCache suggestions;
+
+  @Inject
+  GroupMembersInvalidator(
+      IdentifierCache identifiers, GroupMembersCache groupMembers, SuggestionCache suggestions) {
+    this.identifiers = identifiers;
+    this.groupMembers = groupMembers;
+    this.suggestions = suggestions;
+  }
+
+  @Override
+  public void onGroupIndexed(String uuid) {
+    identifiers.evict(AccountGroup.uuid(uuid));
+    groupMembers.evictAll();
+    suggestions.evictAll();
+  }
+
+  @Override
+  public void onAccountIndexed(int id) {
+    identifiers.evict(Account.id(id));
+    groupMembers.evict(Account.id(id));
+    suggestions.evict(Account.id(id));
+  }
+}
@@ -0,0 +1,180 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.entities.Account;
+import com.google.gerrit.entities.AccountGroup;
+import com.google.gerrit.entities.GroupDescription;
+import com.google.gerrit.exceptions.StorageException;
+import com.google.gerrit.server.account.AccountResolver;
+import com.google.gerrit.server.account.AccountState;
+import com.google.gerrit.server.cache.CacheModule;
+import com.google.gerrit.server.group.GroupResolver;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import org.eclipse.jgit.errors.ConfigInvalidException;
+
+/**
+ * Cache of the accounts and groups that the reviewer and cc identifiers in reviewers.config
+ * resolve to.
+ *
+ * <p>Identifiers are resolved regardless of the visibility of the account or group, which is
+ * checked by the {@link ReviewersResolver} for the user the identifiers are resolved for.
+ */
+@Singleton
+class IdentifierCache {
+  static final String CACHE_NAME = "identifiers";
+
+  static Module module() {
+    return new CacheModule() {
+      @Override
+      protected void configure() {
+        cache(CACHE_NAME, String.class, Identifier.class)
+            .maximumWeight(10_000)
+            .expireAfterWrite(Duration.ofMinutes(15))
+            .loader(Loader.class);
+      }
+    };
+  }
+
+  private final LoadingCache<String, Identifier> cache;
+
+  @Inject
+  IdentifierCache(@Named(CACHE_NAME) LoadingCache<String, Identifier> cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Resolve an identifier.
+   *
+   * @param name the account or group identifier
+   * @return the account or group the identifier resolves to, or {@link Identifier#UNRESOLVABLE}
+   * @throws StorageException if the account or group couldn't be looked up
+   */
+  Identifier get(String name) throws StorageException {
+    try {
+      return cache.get(name);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new StorageException(e.getCause());
+    }
+  }
+
+  /* A reindexed account may have been renamed, or may now be the exact match of an identifier
+   * that didn't resolve before. */
+  void evict(Account.Id account) {
+    cache.asMap().values().removeIf(i -> i.isUnresolvable() || account.equals(i.account));
+  }
+
+  /* A reindexed group may have been renamed, or may be a new group that an identifier that
+   * didn't resolve before now refers to. */
+  void evict(AccountGroup.UUID group) {
+    cache.asMap().values().removeIf(i -> i.isUnresolvable() || group.equals(i.group));
+  }
+
+  /** Either the account or the group an identifier resolves to, or neither. */
+  static class Identifier {
+    static final Identifier UNRESOLVABLE = new Identifier(null, null);
+
+    @Nullable private final Account.Id account;
+    @Nullable private final AccountGroup.UUID group;
+
+    private Identifier(@Nullable Account.Id account, @Nullable AccountGroup.UUID group) {
+      this.account = account;
+      this.group = group;
+    }
+
+    static Identifier account(Account.Id account) {
+      return new Identifier(account, null);
+    }
+
+    static Identifier group(AccountGroup.UUID group) {
+      return new Identifier(null, group);
+    }
+
+    @Nullable
+    Account.Id account() {
+      return account;
+    }
+
+    @Nullable
+    AccountGroup.UUID group() {
+      return group;
+    }
+
+    boolean isUnresolvable() {
+      return account == null && group == null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o instanceof Identifier) {
+        Identifier other = (Identifier) o;
+        return Objects.equals(account, other.account) && Objects.equals(group, other.group);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(account, group);
+    }
+
+    @Override
+    public String toString() {
+      if (account != null) {
+        return "account " + account;
+      }
+      return group != null ? "group " + group.get() : "unresolvable";
+    }
+  }
+
+  static class Loader extends CacheLoader<String, Identifier> {
+    private final AccountResolver accountResolver;
+    private final Provider<GroupResolver> groupResolver;
+
+    @Inject
+    Loader(AccountResolver accountResolver, Provider<GroupResolver> groupResolver) {
+      this.accountResolver = accountResolver;
+      this.groupResolver = groupResolver;
+    }
+
+    @Override
+    public Identifier load(String name) throws IOException, ConfigInvalidException {
+      List<AccountState> accounts = accountResolver.resolveExactIgnoreVisibility(name).asList();
+      if (accounts.size() == 1) {
+        return Identifier.account(accounts.get(0).account().id());
+      }
+      GroupDescription.Basic group = groupResolver.get().parseId(name);
+      if (group != null) {
+        return Identifier.group(group.getGroupUUID());
+      }
+      return Identifier.UNRESOLVABLE;
+    }
+  }
+}
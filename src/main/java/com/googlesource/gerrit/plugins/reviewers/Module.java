@@ -17,11 +17,14 @@ package com.googlesource.gerrit.plugins.reviewers;
 import static com.google.gerrit.server.project.ProjectResource.PROJECT_KIND;
 import static com.googlesource.gerrit.plugins.reviewers.ModifyReviewersConfigCapability.MODIFY_REVIEWERS_CONFIG;
 
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.gerrit.common.UsedAt;
 import com.google.gerrit.common.UsedAt.Project;
 import com.google.gerrit.extensions.annotations.Exports;
 import com.google.gerrit.extensions.config.CapabilityDefinition;
 import com.google.gerrit.extensions.config.FactoryModule;
+import com.google.gerrit.extensions.events.AccountIndexedListener;
+import com.google.gerrit.extensions.events.GroupIndexedListener;
 import com.google.gerrit.extensions.events.PrivateStateChangedListener;
 import com.google.gerrit.extensions.events.RevisionCreatedListener;
 import com.google.gerrit.extensions.events.WorkInProgressStateChangedListener;
@@ -29,6 +32,7 @@ import com.google.gerrit.extensions.registration.DynamicSet;
 import com.google.gerrit.extensions.restapi.RestApiModule;
 import com.google.gerrit.extensions.webui.JavaScriptPlugin;
 import com.google.gerrit.extensions.webui.WebUiPlugin;
+import com.google.gerrit.lifecycle.LifecycleModule;
 import com.google.gerrit.server.change.ReviewerSuggestion;
 import com.google.gerrit.server.git.validators.CommitValidationListener;
 import com.google.gerrit.server.git.validators.MergeValidationListener;
@@ -36,6 +40,7 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
 import com.googlesource.gerrit.plugins.reviewers.config.ConfigModule;
 import com.googlesource.gerrit.plugins.reviewers.config.GlobalConfig;
+import java.util.concurrent.ExecutorService;
 
 public class Module extends FactoryModule {
   public enum ThreadPool {
@@ -56,7 +61,7 @@ public class Module extends FactoryModule {
 
   @Inject
   public Module(GlobalConfig cfg) {
-    this(cfg.enableREST(), cfg.suggestOnly(), ThreadPool.WORK_QUEUE);
+    this(cfg.enableREST(), cfg.suggestOnly(), cfg.threadPool());
   }
 
   @UsedAt(Project.GOOGLE)
@@ -74,12 +79,35 @@ public class Module extends FactoryModule {
         break;
       case WORK_QUEUE:
         bind(ReviewerWorkQueue.class).to(ReviewerWorkQueue.Scheduled.class);
+        install(
+            new LifecycleModule() {
+              @Override
+              protected void configure() {
+                listener().to(ReviewerWorkQueue.Scheduled.class);
+              }
+            });
         break;
       case FAN_OUT:
         bind(ReviewerWorkQueue.class).to(ReviewerWorkQueue.ScheduledFanOut.class);
       default:
         break;
     }
+    if (threadPool == ThreadPool.DIRECT) {
+      bind(ExecutorService.class)
+          .annotatedWith(ResolverExecutor.class)
+          .toInstance(MoreExecutors.newDirectExecutorService());
+    } else {
+      bind(ExecutorService.class)
+          .annotatedWith(ResolverExecutor.class)
+          .toProvider(ResolverExecutorProvider.class);
+      install(
+          new LifecycleModule() {
+            @Override
+            protected void configure() {
+              listener().to(ResolverExecutorProvider.class);
+            }
+          });
+    }
     bind(CapabilityDefinition.class)
         .annotatedWith(Exports.named(MODIFY_REVIEWERS_CONFIG))
         .to(ModifyReviewersConfigCapability.class);
@@ -95,6 +123,23 @@ public class Module extends FactoryModule {
                   .to(ReviewerSuggest.class);
             }
           });
+      DynamicSet.bind(binder(), RevisionCreatedListener.class).to(SuggestionPrefetcher.class);
+      if (threadPool == ThreadPool.DIRECT) {
+        bind(ExecutorService.class)
+            .annotatedWith(SuggestExecutor.class)
+            .toInstance(MoreExecutors.newDirectExecutorService());
+      } else {
+        bind(ExecutorService.class)
+            .annotatedWith(SuggestExecutor.class)
+            .toProvider(SuggestExecutorProvider.class);
+        install(
+            new LifecycleModule() {
+              @Override
+              protected void configure() {
+                listener().to(SuggestExecutorProvider.class);
+              }
+            });
+      }
     } else {
       DynamicSet.bind(binder(), RevisionCreatedListener.class).to(Reviewers.class);
       DynamicSet.bind(binder(), WorkInProgressStateChangedListener.class).to(Reviewers.class);
@@ -102,6 +147,13 @@ public class Module extends FactoryModule {
     }
 
     factory(AddReviewers.Factory.class);
+    install(ReviewersFilterUtil.module());
+    install(FilterStats.module());
+    install(IdentifierCache.module());
+    install(GroupMembersCache.module());
+    install(SuggestionCache.module());
+    DynamicSet.bind(binder(), GroupIndexedListener.class).to(GroupMembersInvalidator.class);
+    DynamicSet.bind(binder(), AccountIndexedListener.class).to(GroupMembersInvalidator.class);
 
     if (enableREST) {
       install(
@@ -110,6 +162,8 @@ public class Module extends FactoryModule {
             protected void configure() {
               get(PROJECT_KIND, "reviewers").to(GetReviewers.class);
               post(PROJECT_KIND, "reviewers").to(PostReviewers.class);
+              get(PROJECT_KIND, "stats").to(GetFilterStats.class);
+              delete(PROJECT_KIND, "stats").to(DeleteFilterStats.class);
             }
           });
     }
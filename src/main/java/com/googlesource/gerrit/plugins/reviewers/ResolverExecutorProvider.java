@@ -0,0 +1,51 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers;
+
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.reviewers.config.GlobalConfig;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Provides the bounded pool of threads that reviewer and cc identifiers are resolved on, and shuts
+ * it down when the plugin is stopped.
+ */
+@Singleton
+class ResolverExecutorProvider implements Provider<ExecutorService>, LifecycleListener {
+  private final ScheduledExecutorService executor;
+
+  @Inject
+  ResolverExecutorProvider(WorkQueue workQueue, GlobalConfig config) {
+    this.executor = workQueue.createQueue(config.resolveThreads(), "Reviewers-Resolver");
+  }
+
+  @Override
+  public void start() {}
+
+  @Override
+  public void stop() {
+    executor.shutdownNow();
+  }
+
+  @Override
+  public ExecutorService get() {
+    return executor;
+  }
+}
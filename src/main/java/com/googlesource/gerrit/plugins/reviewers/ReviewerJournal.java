@@ -0,0 +1,316 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.entities.Account;
+import com.google.gerrit.entities.Change;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.extensions.annotations.PluginData;
+import com.google.gerrit.extensions.restapi.Url;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Append-only journal of the changes pending in the {@link ReviewerWorkQueue.Scheduled} queue, so
+ * that they are not lost when Gerrit is restarted.
+ *
+ * <p>Every line either records that a change is pending, or that it was processed. The latest
+ * line of a change supersedes the earlier ones. On start, the journal is replayed and compacted to
+ * the changes that are still pending; it is also compacted when it grows much larger than the
+ * number of pending changes.
+ *
+ * <p>Lines are not flushed as they are appended, so that the changes of an event are written
+ * together; the queue {@link #flush}es them once it recorded the changes of an event, so that they
+ * are on the disk before the changes are processed, and not lost if Gerrit crashes meanwhile.
+ *
+ * <p>Changes that could not be queued are marked as deferred, and stay pending in the journal until
+ * they are taken to be queued again.
+ */
+@Singleton
+class ReviewerJournal {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  static final String FILE_NAME = "pending.journal";
+
+  private static final String PENDING = "+";
+  private static final String DONE = "-";
+  private static final String NO_UPLOADER = "0";
+  private static final int MIN_COMPACT_LINES = 1_000;
+
+  private final Path file;
+  private final Map<Key, Entry> pending = new LinkedHashMap<>();
+  private final Set<Key> deferred = new LinkedHashSet<>();
+  private long sequence;
+  private int lines;
+  @Nullable private FileChannel channel;
+  @Nullable private Writer writer;
+
+  @Inject
+  ReviewerJournal(@PluginData Path dataDir) {
+    this.file = dataDir.resolve(FILE_NAME);
+  }
+
+  /**
+   * Replay and compact the journal, and open it for appending.
+   *
+   * @return the changes that were still pending, in the order they were recorded.
+   */
+  synchronized ImmutableList<Entry> open() throws IOException {
+    pending.clear();
+    deferred.clear();
+    if (Files.exists(file)) {
+      List<String> lines =
+          Splitter.on('\n').splitToList(new String(Files.readAllBytes(file), UTF_8));
+      for (String line : lines.subList(0, lines.size() - 1)) {
+        replay(line);
+      }
+      /* Unless empty, the last line was truncated as Gerrit was killed while appending it. */
+      String last = lines.get(lines.size() - 1);
+      if (!last.isEmpty()) {
+        logger.atWarning().log("Ignoring truncated last line in %s: %s", file, last);
+      }
+    }
+    compact();
+    return ImmutableList.copyOf(pending.values());
+  }
+
+  /** Write the lines appended so far to the journal file, and force them to the disk. */
+  synchronized void flush() {
+    if (writer != null) {
+      try {
+        writer.flush();
+        channel.force(false);
+      } catch (IOException e) {
+        logger.atSevere().withCause(e).log("Failed to flush %s", file);
+      }
+    }
+  }
+
+  synchronized void close() {
+    if (writer != null) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        logger.atWarning().withCause(e).log("Failed to close %s", file);
+      }
+      writer = null;
+      channel = null;
+    }
+  }
+
+  /** The sequence number of the latest entry, to be passed to {@link #done}. */
+  synchronized long sequence() {
+    return sequence;
+  }
+
+  /** Record that reviewers are pending to be added to a change. */
+  synchronized void pending(
+      Project.NameKey project, Change.Id change, @Nullable Account.Id uploader) {
+    Key key = new Key(project, change);
+    pending.remove(key);
+    deferred.remove(key);
+    pending.put(key, new Entry(key, uploader, ++sequence));
+    append(pendingLine(pending.get(key)));
+  }
+
+  /** Mark a pending change as deferred, to be queued again by {@link #takeDeferred}. */
+  synchronized void defer(Project.NameKey project, Change.Id change) {
+    Key key = new Key(project, change);
+    if (pending.containsKey(key)) {
+      deferred.add(key);
+    }
+  }
+
+  synchronized boolean hasDeferred() {
+    return !deferred.isEmpty();
+  }
+
+  /**
+   * Take deferred changes to queue them again. They stay pending until they are {@link #done}.
+   *
+   * @param max the maximum number of changes to take
+   * @return the changes, in the order they were deferred.
+   */
+  synchronized ImmutableList<Entry> takeDeferred(int max) {
+    ImmutableList.Builder<Entry> entries = ImmutableList.builder();
+    Iterator<Key> it = deferred.iterator();
+    for (int i = 0; i < max && it.hasNext(); i++) {
+      entries.add(pending.get(it.next()));
+      it.remove();
+    }
+    return entries.build();
+  }
+
+  /**
+   * Record that a change was processed, unless it was recorded as pending again since.
+   *
+   * @param project the project of the change
+   * @param change the change
+   * @param started the {@link #sequence()} when processing the change started
+   */
+  synchronized void done(Project.NameKey project, Change.Id change, long started) {
+    Key key = new Key(project, change);
+    Entry entry = pending.get(key);
+    if (entry == null || entry.sequence > started) {
+      return;
+    }
+    pending.remove(key);
+    deferred.remove(key);
+    append(String.join(" ", DONE, Url.encode(project.get()), Integer.toString(change.get())));
+    if (lines > MIN_COMPACT_LINES && lines > 4 * pending.size()) {
+      try {
+        compact();
+      } catch (IOException e) {
+        logger.atWarning().withCause(e).log("Failed to compact %s", file);
+      }
+    }
+  }
+
+  private void replay(String line) {
+    if (line.isEmpty()) {
+      return;
+    }
+    String[] fields = line.split(" ");
+    try {
+      Key key =
+          new Key(
+              Project.nameKey(Url.decode(fields[1])), Change.id(Integer.parseInt(fields[2])));
+      if (PENDING.equals(fields[0]) && fields.length == 4) {
+        Account.Id uploader =
+            NO_UPLOADER.equals(fields[3]) ? null : Account.id(Integer.parseInt(fields[3]));
+        pending.remove(key);
+        pending.put(key, new Entry(key, uploader, ++sequence));
+      } else if (DONE.equals(fields[0])) {
+        pending.remove(key);
+      }
+    } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+      logger.atWarning().log("Ignoring invalid line in %s: %s", file, line);
+    }
+  }
+
+  /* Rewrites the journal with the pending changes only. */
+  private void compact() throws IOException {
+    close();
+    Files.createDirectories(file.getParent());
+    Path tmp = file.resolveSibling(FILE_NAME + ".tmp");
+    try (BufferedWriter w = Files.newBufferedWriter(tmp, UTF_8)) {
+      for (Entry e : pending.values()) {
+        w.write(pendingLine(e));
+        w.write('\n');
+      }
+    }
+    Files.move(tmp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+    lines = pending.size();
+    channel = FileChannel.open(file, CREATE, WRITE, APPEND);
+    writer = new BufferedWriter(Channels.newWriter(channel, UTF_8));
+  }
+
+  private static String pendingLine(Entry e) {
+    return String.join(
+        " ",
+        PENDING,
+        Url.encode(e.project().get()),
+        Integer.toString(e.change().get()),
+        e.uploader() != null ? Integer.toString(e.uploader().get()) : NO_UPLOADER);
+  }
+
+  private void append(String line) {
+    if (writer == null) {
+      return;
+    }
+    try {
+      writer.write(line);
+      writer.write('\n');
+      lines++;
+    } catch (IOException e) {
+      logger.atSevere().withCause(e).log("Failed to append to %s", file);
+    }
+  }
+
+  private static class Key {
+    private final Project.NameKey project;
+    private final Change.Id change;
+
+    Key(Project.NameKey project, Change.Id change) {
+      this.project = project;
+      this.change = change;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o instanceof Key) {
+        Key other = (Key) o;
+        return project.equals(other.project) && change.equals(other.change);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(project, change);
+    }
+  }
+
+  /** A change pending in the journal. */
+  static class Entry {
+    private final Key key;
+    @Nullable private final Account.Id uploader;
+    private final long sequence;
+
+    private Entry(Key key, @Nullable Account.Id uploader, long sequence) {
+      this.key = key;
+      this.uploader = uploader;
+      this.sequence = sequence;
+    }
+
+    Project.NameKey project() {
+      return key.project;
+    }
+
+    Change.Id change() {
+      return key.change;
+    }
+
+    @Nullable
+    Account.Id uploader() {
+      return uploader;
+    }
+  }
+}
@@ -16,6 +16,7 @@ package com.googlesource.gerrit.plugins.reviewers;
 
 import static java.util.stream.Collectors.toSet;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.flogger.FluentLogger;
 import com.google.gerrit.entities.Account;
@@ -25,32 +26,22 @@ import com.google.gerrit.exceptions.StorageException;
 import com.google.gerrit.index.query.QueryParseException;
 import com.google.gerrit.server.change.ReviewerSuggestion;
 import com.google.gerrit.server.change.SuggestedReviewer;
-import com.google.gerrit.server.query.change.ChangeData;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
-import com.googlesource.gerrit.plugins.reviewers.config.FiltersFactory;
-import java.util.List;
+import com.googlesource.gerrit.plugins.reviewers.config.GlobalConfig;
 import java.util.Set;
 
 @Singleton
 public class ReviewerSuggest implements ReviewerSuggestion {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
-  private final FiltersFactory filters;
-  private final ReviewersFilterUtil util;
-  private final ReviewersResolver resolver;
-  private final ChangeData.Factory changeDataFactory;
+  private final SuggestionCache suggestions;
+  private final int maxSuggestions;
 
   @Inject
-  public ReviewerSuggest(
-      FiltersFactory filters,
-      ReviewersFilterUtil filterUtil,
-      ReviewersResolver resolver,
-      ChangeData.Factory changeDataFactory) {
-    this.filters = filters;
-    this.util = filterUtil;
-    this.resolver = resolver;
-    this.changeDataFactory = changeDataFactory;
+  public ReviewerSuggest(SuggestionCache suggestions, GlobalConfig config) {
+    this.suggestions = suggestions;
+    this.maxSuggestions = config.maxSuggestions();
   }
 
   @Override
@@ -59,20 +50,21 @@ public class ReviewerSuggest implements ReviewerSuggestion {
       Id changeId,
       String query,
       Set<com.google.gerrit.entities.Account.Id> candidates) {
-    List<ReviewerFilter> sections = filters.withInheritance(project);
-
-    if (sections.isEmpty() || changeId == null) {
+    if (changeId == null) {
+      return ImmutableSet.of();
+    }
+    // The candidates are the accounts matching the query typed in the dialog. If there are none,
+    // none of the suggestions match it either.
+    if (!Strings.isNullOrEmpty(query) && candidates.isEmpty()) {
       return ImmutableSet.of();
     }
 
     try {
-      ChangeData cd = changeDataFactory.create(project, changeId);
-      Set<String> reviewers = util.findReviewers(cd, sections);
-      if (!reviewers.isEmpty()) {
-        return resolver.resolve(reviewers, project, changeId.get(), null, false).stream()
-            .map(a -> suggestedReviewer(a))
-            .collect(toSet());
-      }
+      return suggestions
+          .get(project, changeId, candidates)
+          .limit(maxSuggestions)
+          .map(a -> suggestedReviewer(a))
+          .collect(toSet());
     } catch (StorageException | QueryParseException x) {
       logger.atSevere().withCause(x).log("%s", x.getMessage());
     }
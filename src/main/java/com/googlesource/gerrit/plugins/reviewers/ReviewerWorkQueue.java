@@ -16,26 +16,353 @@ package com.googlesource.gerrit.plugins.reviewers;
 
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.entities.Account;
+import com.google.gerrit.entities.Change;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.extensions.events.LifecycleListener;
 import com.google.gerrit.server.FanOutExecutor;
 import com.google.gerrit.server.git.WorkQueue;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.reviewers.config.GlobalConfig;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 interface ReviewerWorkQueue {
   void submit(AddReviewers addReviewers);
 
-  class Scheduled implements ReviewerWorkQueue {
-    private final WorkQueue workQueue;
+  /**
+   * Dedicated work queue of the plugin, listed as {@code Reviewers} by {@code show-queue}.
+   *
+   * <p>Work is delayed by the configured coalescing window. Further events of a change within the
+   * window, whoever they are from, are merged into the pending change, so that reviewers are only
+   * added once based on its latest state and the uploader of its latest event. The changes of a
+   * project pending at once, like the changes of a series pushed at once, are processed together.
+   *
+   * <p>When the configured capacity is reached, further changes are only deferred in the {@link
+   * ReviewerJournal}, so that neither the queue grows without bounds nor the threads handling the
+   * events are blocked, and they are queued again once the queue has room.
+   *
+   * <p>Pending changes are recorded in the {@link ReviewerJournal} and replayed when the plugin is
+   * started. Changes whose reviewers couldn't be added are retried with an exponential backoff.
+   */
+  @Singleton
+  class Scheduled implements ReviewerWorkQueue, LifecycleListener {
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+    static final String QUEUE_NAME = "Reviewers";
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final int capacity;
+    private final long coalesceWindowMs;
+    private final int maxRetries;
+    private final long retryDelayMs;
+    private final long maxRetryDelayMs;
+    /* The uploader of the latest event of every change waiting for the coalescing window, by
+     * project. Guarded by itself. */
+    private final Map<Project.NameKey, Map<Change.Id, Optional<Account.Id>>> pending =
+        new HashMap<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AddReviewers.Factory addReviewersFactory;
+    private final ReviewerJournal journal;
+    private final ReviewersMetrics metrics;
 
     @Inject
-    Scheduled(WorkQueue workQueue) {
-      this.workQueue = workQueue;
+    Scheduled(
+        WorkQueue workQueue,
+        GlobalConfig config,
+        AddReviewers.Factory addReviewersFactory,
+        ReviewerJournal journal,
+        ReviewersMetrics metrics) {
+      this.addReviewersFactory = addReviewersFactory;
+      this.journal = journal;
+      this.metrics = metrics;
+      this.executor = workQueue.createQueue(config.poolSize(), QUEUE_NAME, true);
+      metrics.registerQueueDepth(() -> executor.getQueue().size());
+      this.capacity = config.queueCapacity();
+      this.coalesceWindowMs = config.coalesceWindow().toMillis();
+      this.maxRetries = config.maxRetries();
+      this.retryDelayMs = Math.max(1, config.retryDelay().toMillis());
+      this.maxRetryDelayMs = Math.max(retryDelayMs, config.maxRetryDelay().toMillis());
     }
 
     @Override
     public void submit(AddReviewers addReviewers) {
-      workQueue.getDefaultQueue().submit(addReviewers);
+      for (Change.Id change : addReviewers.changes()) {
+        journal.pending(addReviewers.project(), change, addReviewers.uploader());
+      }
+      journal.flush();
+      enqueue(addReviewers);
+    }
+
+    private void enqueue(AddReviewers addReviewers) {
+      if (room() <= 0) {
+        defer(addReviewers);
+        return;
+      }
+      if (coalesceWindowMs <= 0) {
+        @SuppressWarnings("unused")
+        Future<?> ignored = executor.submit(new Attempt(addReviewers, 0, 0));
+        return;
+      }
+      Project.NameKey project = addReviewers.project();
+      boolean scheduled;
+      synchronized (pending) {
+        Map<Change.Id, Optional<Account.Id>> changes = pending.get(project);
+        scheduled = changes == null;
+        if (scheduled) {
+          changes = new LinkedHashMap<>();
+          pending.put(project, changes);
+        }
+        for (Change.Id change : addReviewers.changes()) {
+          changes.put(change, Optional.ofNullable(addReviewers.uploader()));
+        }
+      }
+      if (scheduled) {
+        @SuppressWarnings("unused")
+        Future<?> ignored =
+            executor.schedule(
+                new Coalesced(project, coalesceWindowMs), coalesceWindowMs, TimeUnit.MILLISECONDS);
+      }
+    }
+
+    private void enqueue(ImmutableList<ReviewerJournal.Entry> entries) {
+      ListMultimap<BatchKey, Change.Id> batches = LinkedListMultimap.create();
+      for (ReviewerJournal.Entry e : entries) {
+        batches.put(new BatchKey(e.project(), e.uploader()), e.change());
+      }
+      for (BatchKey key : batches.keySet()) {
+        enqueue(addReviewersFactory.create(key.project, key.uploader, batches.get(key)));
+      }
+    }
+
+    private int room() {
+      return capacity > 0 ? capacity - executor.getQueue().size() : Integer.MAX_VALUE;
+    }
+
+    /* The changes are already recorded as pending in the journal, where they are left until the
+     * queue has room again. */
+    private void defer(AddReviewers addReviewers) {
+      logger.atWarning().atMostEvery(1, TimeUnit.MINUTES).log(
+          "Queue %s is full with %d pending tasks, deferring changes", QUEUE_NAME, capacity);
+      for (Change.Id change : addReviewers.changes()) {
+        journal.defer(addReviewers.project(), change);
+      }
+      scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+      if (draining.compareAndSet(false, true)) {
+        @SuppressWarnings("unused")
+        Future<?> ignored =
+            executor.schedule(new Drain(retryDelayMs), retryDelayMs, TimeUnit.MILLISECONDS);
+      }
+    }
+
+    private void process(AddReviewers batch, int attempt) {
+      journal.flush();
+      long started = journal.sequence();
+      ImmutableSet<Change.Id> failed = batch.process();
+      for (Change.Id change : batch.changes()) {
+        if (!failed.contains(change)) {
+          journal.done(batch.project(), change, started);
+        }
+      }
+      metrics.increment(ReviewersMetrics.Outcome.DONE, batch.changes().size() - failed.size());
+      if (failed.isEmpty()) {
+        return;
+      }
+      if (attempt >= maxRetries) {
+        metrics.increment(ReviewersMetrics.Outcome.FAILED, failed.size());
+        logger.atSevere().log(
+            "Giving up adding reviewers to changes %s of project %s after %d attempts",
+            failed, batch.project().get(), attempt + 1);
+        for (Change.Id change : failed) {
+          journal.done(batch.project(), change, started);
+        }
+        return;
+      }
+      metrics.increment(ReviewersMetrics.Outcome.RETRIED, failed.size());
+      long delay = retryDelay(attempt);
+      logger.atWarning().log(
+          "Retrying to add reviewers to changes %s of project %s in %d ms",
+          failed, batch.project().get(), delay);
+      @SuppressWarnings("unused")
+      Future<?> ignored =
+          executor.schedule(
+              new Attempt(
+                  addReviewersFactory.create(batch.project(), batch.uploader(), failed),
+                  attempt + 1,
+                  delay),
+              delay,
+              TimeUnit.MILLISECONDS);
+    }
+
+    /* Exponential backoff, with a random jitter of up to half of the delay so that the retries
+     * of changes that failed at the same time are spread out. */
+    private long retryDelay(int attempt) {
+      long delay = Math.min(maxRetryDelayMs, retryDelayMs << Math.min(attempt, 20));
+      return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    /* Records how long a task waited for a thread of the queue after it was due. */
+    private void recordWaitTime(long dueNanos) {
+      metrics.queueWaitTime.record(
+          Math.max(0, System.nanoTime() - dueNanos), TimeUnit.NANOSECONDS);
+    }
+
+    private class Attempt implements Runnable {
+      private final AddReviewers batch;
+      private final int attempt;
+      private final long dueNanos;
+
+      Attempt(AddReviewers batch, int attempt, long delayMs) {
+        this.batch = batch;
+        this.attempt = attempt;
+        this.dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+      }
+
+      @Override
+      public void run() {
+        recordWaitTime(dueNanos);
+        process(batch, attempt);
+      }
+
+      @Override
+      public String toString() {
+        return attempt > 0 ? batch + " (retry " + attempt + ")" : batch.toString();
+      }
+    }
+
+    /* Runs the work pending for the changes of the project when the window elapses, in a batch
+     * per uploader. */
+    private class Coalesced implements Runnable {
+      private final Project.NameKey project;
+      private final long dueNanos;
+
+      Coalesced(Project.NameKey project, long delayMs) {
+        this.project = project;
+        this.dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+      }
+
+      @Override
+      public void run() {
+        recordWaitTime(dueNanos);
+        Map<Change.Id, Optional<Account.Id>> changes;
+        synchronized (pending) {
+          changes = pending.remove(project);
+        }
+        if (changes == null) {
+          return;
+        }
+        ListMultimap<Optional<Account.Id>, Change.Id> byUploader = LinkedListMultimap.create();
+        changes.forEach((change, uploader) -> byUploader.put(uploader, change));
+        for (Optional<Account.Id> uploader : byUploader.keySet()) {
+          process(
+              addReviewersFactory.create(project, uploader.orElse(null), byUploader.get(uploader)),
+              0);
+        }
+      }
+
+      @Override
+      public String toString() {
+        int changes;
+        synchronized (pending) {
+          changes = pending.getOrDefault(project, ImmutableMap.of()).size();
+        }
+        return String.format("Add reviewers to %d changes of project %s", changes, project.get());
+      }
+    }
+
+    /* Queues the deferred changes again, as far as the queue has room. */
+    private class Drain implements Runnable {
+      private final long dueNanos;
+
+      Drain(long delayMs) {
+        this.dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+      }
+
+      @Override
+      public void run() {
+        recordWaitTime(dueNanos);
+        draining.set(false);
+        int room = room();
+        if (room > 0) {
+          enqueue(journal.takeDeferred(room));
+        }
+        if (journal.hasDeferred()) {
+          scheduleDrain();
+        }
+      }
+
+      @Override
+      public String toString() {
+        return "Queue deferred changes to add reviewers to";
+      }
+    }
+
+    private static class BatchKey {
+      private final Project.NameKey project;
+      @Nullable private final Account.Id uploader;
+
+      BatchKey(Project.NameKey project, @Nullable Account.Id uploader) {
+        this.project = project;
+        this.uploader = uploader;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+        if (o instanceof BatchKey) {
+          BatchKey other = (BatchKey) o;
+          return project.equals(other.project) && Objects.equals(uploader, other.uploader);
+        }
+        return false;
+      }
+
+      @Override
+      public int hashCode() {
+        return Objects.hash(project, uploader);
+      }
+    }
+
+    @Override
+    public void start() {
+      ImmutableList<ReviewerJournal.Entry> entries;
+      try {
+        entries = journal.open();
+      } catch (IOException e) {
+        logger.atSevere().withCause(e).log(
+            "Failed to open the journal, pending changes are not recorded");
+        return;
+      }
+      if (entries.isEmpty()) {
+        return;
+      }
+      logger.atInfo().log("Adding reviewers to %d pending changes", entries.size());
+      enqueue(entries);
+    }
+
+    @Override
+    public void stop() {
+      executor.shutdown();
+      journal.close();
     }
   }
 
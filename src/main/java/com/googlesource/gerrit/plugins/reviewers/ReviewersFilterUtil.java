@@ -14,62 +14,146 @@
 
 package com.googlesource.gerrit.plugins.reviewers;
 
-import com.google.common.base.Preconditions;
-import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.gerrit.entities.Change;
 import com.google.gerrit.exceptions.StorageException;
+import com.google.gerrit.index.query.Matchable;
 import com.google.gerrit.index.query.QueryParseException;
+import com.google.gerrit.server.cache.CacheModule;
 import com.google.gerrit.server.query.change.ChangeData;
 import com.google.gerrit.server.query.change.ChangeQueryBuilder;
 import com.google.inject.Inject;
+import com.google.inject.Module;
 import com.google.inject.Provider;
-import java.util.List;
-import java.util.Set;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Named;
+import com.googlesource.gerrit.plugins.reviewers.config.CompiledFilter;
+import com.googlesource.gerrit.plugins.reviewers.config.FilePatternMatcher;
+import com.googlesource.gerrit.plugins.reviewers.config.FilterSnapshot;
+import java.util.concurrent.ExecutionException;
 
 public class ReviewersFilterUtil {
+  static final String PREDICATE_CACHE = "predicates";
+
+  static Module module() {
+    return new CacheModule() {
+      @Override
+      protected void configure() {
+        cache(PREDICATE_CACHE, String.class, new TypeLiteral<Matchable<ChangeData>>() {})
+            .maximumWeight(4096)
+            .loader(PredicateLoader.class);
+      }
+    };
+  }
+
   private final Provider<ChangeQueryBuilder> queryBuilder;
+  private final LoadingCache<String, Matchable<ChangeData>> predicates;
+  private final FilterStats stats;
 
   @Inject
-  public ReviewersFilterUtil(Provider<ChangeQueryBuilder> queryBuilder) {
+  ReviewersFilterUtil(
+      Provider<ChangeQueryBuilder> queryBuilder,
+      @Named(PREDICATE_CACHE) LoadingCache<String, Matchable<ChangeData>> predicates,
+      FilterStats stats) {
     this.queryBuilder = queryBuilder;
+    this.predicates = predicates;
+    this.stats = stats;
   }
 
-  public Set<String> findReviewers(ChangeData cd, List<ReviewerFilter> filters)
+  /**
+   * Evaluate the filters against a change in a single pass.
+   *
+   * @param cd the change to match the filters against
+   * @param snapshot the filters to evaluate
+   * @return the matching filters and the reviewer and cc identifiers they configure
+   */
+  public FilterMatches evaluate(ChangeData cd, FilterSnapshot snapshot)
       throws StorageException, QueryParseException {
-    Set<String> reviewers = Sets.newHashSet();
-    List<ReviewerFilter> found = findReviewerFilters(cd, filters);
-    for (ReviewerFilter s : found) {
-      reviewers.addAll(s.getReviewers());
-    }
-    return reviewers;
+    Change change = cd.change();
+    return evaluate(cd, snapshot, change.getDest().branch(), change.getStatus());
   }
 
-  public Set<String> findCcs(ChangeData cd, List<ReviewerFilter> filters)
+  /**
+   * Evaluate the filters against a change in a single pass. Only the filters that are candidates
+   * for the destination ref and status of the change are matched against it, and the {@code
+   * file:} expressions of all of them are matched against the files of the change at once.
+   *
+   * <p>The evaluation of every candidate filter is recorded in the {@link FilterStats}; the time
+   * of matching the files of the change, which is shared by all filters, is not accounted to any
+   * of them.
+   *
+   * @param cd the change to match the filters against
+   * @param snapshot the filters to evaluate
+   * @param ref the full name of the destination ref of the change
+   * @param status the status of the change
+   * @return the matching filters and the reviewer and cc identifiers they configure
+   */
+  public FilterMatches evaluate(
+      ChangeData cd, FilterSnapshot snapshot, String ref, Change.Status status)
       throws StorageException, QueryParseException {
-    Set<String> ccs = Sets.newHashSet();
-    List<ReviewerFilter> found = findReviewerFilters(cd, filters);
-    for (ReviewerFilter s : found) {
-      ccs.addAll(s.getCcs());
+    ImmutableList.Builder<CompiledFilter> found = ImmutableList.builder();
+    FilePatternMatcher.Result files = null;
+    boolean dependsOnUser = false;
+    ImmutableList<CompiledFilter> candidates = snapshot.candidates(ref, status);
+    FilterStats.ProjectStats projectStats = stats.of(cd.project(), snapshot);
+    /* The end of the evaluation of a filter is the start of the next one. */
+    long start = System.nanoTime();
+    for (CompiledFilter f : candidates) {
+      boolean matches = true;
+      if (!f.matchesAll()) {
+        if (f.hasFilePatterns()) {
+          if (files == null) {
+            files = snapshot.matchFiles(cd.currentFilePaths());
+            start = System.nanoTime();
+          }
+          matches = files.matches(f);
+        }
+        if (matches && !f.isComplete()) {
+          dependsOnUser |= f.dependsOnUser();
+          matches = compile(f.filter(), f.dependsOnUser()).match(cd);
+        }
+      }
+      long end = System.nanoTime();
+      projectStats.record(f, matches, end - start);
+      start = end;
+      if (matches) {
+        found.add(f);
+      }
     }
-    return ccs;
+    return FilterMatches.of(found.build(), dependsOnUser);
   }
 
-  private List<ReviewerFilter> findReviewerFilters(ChangeData cd, List<ReviewerFilter> sections)
+  /* Filters whose predicates may depend on the user or the time are parsed for every evaluation
+   * instead of being shared through the cache. */
+  private Matchable<ChangeData> compile(String filter, boolean userDependent)
       throws StorageException, QueryParseException {
-    ImmutableList.Builder<ReviewerFilter> found = ImmutableList.builder();
-    for (ReviewerFilter s : sections) {
-      if (Strings.isNullOrEmpty(s.getFilter()) || s.getFilter().equals("*")) {
-        found.add(s);
-      } else if (filterMatch(cd, s.getFilter())) {
-        found.add(s);
-      }
+    if (userDependent) {
+      return queryBuilder.get().parse(filter).asMatchable();
+    }
+    try {
+      return predicates.get(filter);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), QueryParseException.class);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new StorageException(e.getCause());
     }
-    return found.build();
   }
 
-  boolean filterMatch(ChangeData cd, String filter) throws StorageException, QueryParseException {
-    Preconditions.checkNotNull(filter);
-    return queryBuilder.get().parse(filter).asMatchable().match(cd);
+  static class PredicateLoader extends CacheLoader<String, Matchable<ChangeData>> {
+    private final Provider<ChangeQueryBuilder> queryBuilder;
+
+    @Inject
+    PredicateLoader(Provider<ChangeQueryBuilder> queryBuilder) {
+      this.queryBuilder = queryBuilder;
+    }
+
+    @Override
+    public Matchable<ChangeData> load(String filter) throws QueryParseException {
+      return queryBuilder.get().parse(filter).asMatchable();
+    }
   }
 }
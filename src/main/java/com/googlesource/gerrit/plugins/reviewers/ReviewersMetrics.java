@@ -0,0 +1,157 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers;
+
+import com.google.gerrit.metrics.Counter0;
+import com.google.gerrit.metrics.Counter1;
+import com.google.gerrit.metrics.Description;
+import com.google.gerrit.metrics.Description.Units;
+import com.google.gerrit.metrics.Field;
+import com.google.gerrit.metrics.Histogram0;
+import com.google.gerrit.metrics.MetricMaker;
+import com.google.gerrit.metrics.Timer0;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.reviewers.config.GlobalConfig.OversizedPolicy;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/** Metrics of the stages of adding reviewers to changes. */
+@Singleton
+public class ReviewersMetrics {
+  enum Outcome {
+    /** Reviewers were added, or none were missing. */
+    DONE,
+    /** Adding reviewers failed and is retried. */
+    RETRIED,
+    /** Adding reviewers failed, and was given up after the last retry. */
+    FAILED
+  }
+
+  private final MetricMaker metricMaker;
+  private final Timer0 snapshotLoadLatency;
+  final Timer0 matchLatency;
+  final Timer0 resolveLatency;
+  final Counter0 resolveTimeouts;
+  final Histogram0 groupSize;
+  final Timer0 addLatency;
+  final Counter1<String> addOutcome;
+  final Timer0 queueWaitTime;
+  private final Timer0 warmUpLatency;
+  private final Counter1<String> oversized;
+
+  @Inject
+  ReviewersMetrics(MetricMaker metricMaker) {
+    this.metricMaker = metricMaker;
+    /* The latencies are not broken down by project, which would create metrics for every
+     * project of the server. */
+    snapshotLoadLatency =
+        metricMaker.newTimer(
+            "filters/load_latency",
+            new Description("Latency of building the filters of a project onto its parent's.")
+                .setCumulative()
+                .setUnit(Units.MILLISECONDS));
+    matchLatency =
+        metricMaker.newTimer(
+            "filters/match_latency",
+            new Description("Latency of matching the filters of a project against a change.")
+                .setCumulative()
+                .setUnit(Units.MILLISECONDS));
+    resolveLatency =
+        metricMaker.newTimer(
+            "resolver/latency",
+            new Description("Latency of resolving the reviewer and cc identifiers of a change.")
+                .setCumulative()
+                .setUnit(Units.MILLISECONDS));
+    resolveTimeouts =
+        metricMaker.newCounter(
+            "resolver/timeouts",
+            new Description("Number of resolutions that did not complete within the timeout.")
+                .setRate());
+    groupSize =
+        metricMaker.newHistogram(
+            "resolver/group_size",
+            new Description("Number of member accounts a group expands to.")
+                .setCumulative()
+                .setUnit("accounts"));
+    addLatency =
+        metricMaker.newTimer(
+            "add/latency",
+            new Description("Latency of adding reviewers to the changes of a batch.")
+                .setCumulative()
+                .setUnit(Units.MILLISECONDS));
+    addOutcome =
+        metricMaker.newCounter(
+            "add/outcome",
+            new Description("Number of changes reviewers were added to, by outcome.").setRate(),
+            Field.ofString("outcome", (metadataBuilder, fieldValue) -> {})
+                .description("The outcome of adding reviewers to a change.")
+                .build());
+    queueWaitTime =
+        metricMaker.newTimer(
+            "queue/wait_time",
+            new Description(
+                    "Time tasks wait in the Reviewers queue before running, beyond the coalescing"
+                        + " window.")
+                .setCumulative()
+                .setUnit(Units.MILLISECONDS));
+    warmUpLatency =
+        metricMaker.newTimer(
+            "filters/warm_up_latency",
+            new Description("Time to warm up the filters of the projects when the plugin starts.")
+                .setCumulative()
+                .setUnit(Units.MILLISECONDS));
+    oversized =
+        metricMaker.newCounter(
+            "resolver/oversized",
+            new Description(
+                    "Number of times the accounts of a filter or change exceeded maxAccounts, by"
+                        + " policy.")
+                .setRate(),
+            Field.ofString("policy", (metadataBuilder, fieldValue) -> {})
+                .description("The policy applied to the accounts exceeding the limit.")
+                .build());
+  }
+
+  /** Time the building of the filter snapshot of a project. */
+  public Timer0.Context startSnapshotLoad() {
+    return snapshotLoadLatency.start();
+  }
+
+  /** Record the time the warm-up of the filters of the projects took. */
+  public void recordWarmUp(Duration duration) {
+    warmUpLatency.record(duration.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  void increment(Outcome outcome, int changes) {
+    addOutcome.incrementBy(outcome.name().toLowerCase(Locale.US), changes);
+  }
+
+  void incrementOversized(OversizedPolicy policy) {
+    oversized.increment(policy.name().toLowerCase(Locale.US));
+  }
+
+  void registerQueueDepth(Supplier<Integer> depth) {
+    metricMaker.newCallbackMetric(
+        "queue/depth",
+        Integer.class,
+        new Description("Number of tasks pending in the Reviewers queue.")
+            .setGauge()
+            .setUnit("tasks"),
+        depth);
+  }
+}
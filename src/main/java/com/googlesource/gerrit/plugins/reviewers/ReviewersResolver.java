@@ -14,49 +14,97 @@
 
 package com.googlesource.gerrit.plugins.reviewers;
 
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static java.util.stream.Collectors.toSet;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.common.flogger.FluentLogger;
+import com.google.common.hash.Hashing;
 import com.google.gerrit.common.Nullable;
 import com.google.gerrit.entities.Account;
+import com.google.gerrit.entities.AccountGroup;
 import com.google.gerrit.entities.Project;
-import com.google.gerrit.exceptions.StorageException;
+import com.google.gerrit.exceptions.NoSuchGroupException;
 import com.google.gerrit.extensions.common.AccountInfo;
-import com.google.gerrit.extensions.restapi.UnprocessableEntityException;
-import com.google.gerrit.server.account.AccountResolver;
-import com.google.gerrit.server.account.GroupMembers;
-import com.google.gerrit.server.group.GroupResolver;
-import com.google.gerrit.server.project.NoSuchProjectException;
+import com.google.gerrit.metrics.Timer0;
+import com.google.gerrit.server.account.AccountControl;
+import com.google.gerrit.server.account.GroupControl;
+import com.google.gerrit.server.util.ManualRequestContext;
+import com.google.gerrit.server.util.OneOffRequestContext;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
-import java.io.IOException;
+import com.googlesource.gerrit.plugins.reviewers.IdentifierCache.Identifier;
+import com.googlesource.gerrit.plugins.reviewers.config.CompiledFilter;
+import com.googlesource.gerrit.plugins.reviewers.config.GlobalConfig;
+import com.googlesource.gerrit.plugins.reviewers.config.GlobalConfig.OversizedPolicy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
-import org.eclipse.jgit.errors.ConfigInvalidException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
 
 /**
  * Attempts to resolve string identifiers in reviewers.config into valid {@link
  * com.google.gerrit.entities.Account.Id}s when string identifies an account and groups that are
  * expanded into {@link com.google.gerrit.entities.Account.Id}s if it identifies a group.
+ *
+ * <p>Identifiers are resolved concurrently on the {@link ResolverExecutor}, within the configured
+ * {@code resolveTimeout}. Identifiers that couldn't be resolved in time are skipped.
+ *
+ * <p>The accounts added to a change automatically are limited by {@code maxAccounts}, so that a
+ * filter configuring a huge group can't flood changes with reviewers.
  */
 @Singleton
 class ReviewersResolver {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
-  private final AccountResolver accountResolver;
-  private final Provider<GroupResolver> groupResolver;
-  private final GroupMembers groupMembers;
+  private final IdentifierCache identifiers;
+  private final GroupMembersCache groupMembers;
+  private final Provider<AccountControl.Factory> accountControlFactory;
+  private final Provider<GroupControl.Factory> groupControlFactory;
+  private final OneOffRequestContext requestContext;
+  private final ExecutorService executor;
+  private final Duration timeout;
+  private final int maxAccounts;
+  private final OversizedPolicy oversizedPolicy;
+  private final ReviewersMetrics metrics;
 
   @Inject
   ReviewersResolver(
-      AccountResolver accountResolver,
-      Provider<GroupResolver> groupResolver,
-      GroupMembers groupMembers) {
-    this.accountResolver = accountResolver;
-    this.groupResolver = groupResolver;
+      IdentifierCache identifiers,
+      GroupMembersCache groupMembers,
+      Provider<AccountControl.Factory> accountControlFactory,
+      Provider<GroupControl.Factory> groupControlFactory,
+      OneOffRequestContext requestContext,
+      @ResolverExecutor ExecutorService executor,
+      GlobalConfig config,
+      ReviewersMetrics metrics) {
+    this.identifiers = identifiers;
     this.groupMembers = groupMembers;
+    this.accountControlFactory = accountControlFactory;
+    this.groupControlFactory = groupControlFactory;
+    this.requestContext = requestContext;
+    this.executor = executor;
+    this.timeout = config.resolveTimeout();
+    this.maxAccounts = config.maxAccounts();
+    this.oversizedPolicy = config.oversizedPolicy();
+    this.metrics = metrics;
   }
 
   /**
@@ -77,68 +125,475 @@ class ReviewersResolver {
       int changeNumber,
       @Nullable AccountInfo uploader,
       boolean ignoreAccountVisibility) {
-    Set<Account.Id> reviewers = Sets.newHashSetWithExpectedSize(names.size());
-    for (String name : names) {
-      if (resolveAccount(
-          project, changeNumber, uploader, reviewers, name, ignoreAccountVisibility)) {
-        continue;
+    return resolve(
+            names, ImmutableSet.of(), project, changeNumber, uploader, ignoreAccountVisibility)
+        .reviewers();
+  }
+
+  /**
+   * Resolve the reviewer and cc names of a change at once, with a common deadline.
+   *
+   * @param reviewers the reviewer names to convert
+   * @param ccs the cc names to convert
+   * @param project the project name
+   * @param changeNumber the change Id
+   * @param uploader account to skip, or null
+   * @param ignoreAccountVisibility if account visibiltiy should be ignored
+   * @return the reviewer and cc {@link com.google.gerrit.entities.Account.Id}s.
+   */
+  Result resolve(
+      Set<String> reviewers,
+      Set<String> ccs,
+      Project.NameKey project,
+      int changeNumber,
+      @Nullable AccountInfo uploader,
+      boolean ignoreAccountVisibility) {
+    Expansions expansions = expand(Sets.union(reviewers, ccs), project, changeNumber);
+    return new Result(
+        accounts(expansions, reviewers, project, changeNumber, uploader, ignoreAccountVisibility),
+        accounts(
+            expansions,
+            Sets.difference(ccs, reviewers),
+            project,
+            changeNumber,
+            uploader,
+            ignoreAccountVisibility));
+  }
+
+  /**
+   * Resolve the reviewer and cc names of the filters matching a change, within the limits on the
+   * number of accounts. The accounts of every filter are limited by its own {@code maxAccounts},
+   * if any, and by the global {@code maxAccounts}, which also limits all accounts of the change.
+   * Accounts are only collected until a limit is exceeded, unless they are sampled.
+   *
+   * @param matches the filters matching the change
+   * @param project the project name
+   * @param changeNumber the change Id, which also seeds the sampling of oversized accounts
+   * @param uploader account to skip, or null
+   * @param ignoreAccountVisibility if account visibiltiy should be ignored
+   * @return the reviewer and cc {@link com.google.gerrit.entities.Account.Id}s.
+   */
+  Result resolve(
+      FilterMatches matches,
+      Project.NameKey project,
+      int changeNumber,
+      @Nullable AccountInfo uploader,
+      boolean ignoreAccountVisibility) {
+    Expansions expansions =
+        expand(Sets.union(matches.reviewers(), matches.ccs()), project, changeNumber);
+    Set<Account.Id> reviewers = new LinkedHashSet<>();
+    Set<Account.Id> ccs = new LinkedHashSet<>();
+    boolean sampled = false;
+    for (CompiledFilter f : matches.filters()) {
+      int limit = limit(f.maxAccounts());
+      Limited r =
+          limit(
+              visibleAccounts(
+                  expansions,
+                  f.reviewers(),
+                  project,
+                  changeNumber,
+                  uploader,
+                  ignoreAccountVisibility),
+              limit,
+              changeNumber);
+      Limited c = Limited.NONE;
+      /* An oversized sample of reviewers already takes up the whole limit. */
+      if (!r.oversized) {
+        c =
+            limit(
+                visibleAccounts(
+                        expansions,
+                        f.ccs(),
+                        project,
+                        changeNumber,
+                        uploader,
+                        ignoreAccountVisibility)
+                    .filter(a -> !r.accounts.contains(a)),
+                limit - r.accounts.size(),
+                changeNumber);
+      }
+      if (r.oversized || c.oversized) {
+        oversized("filter \"" + f.filter() + "\"", limit, project, changeNumber);
+        if (oversizedPolicy == OversizedPolicy.REJECT) {
+          continue;
+        }
+        sampled = true;
       }
+      reviewers.addAll(r.accounts);
+      ccs.addAll(c.accounts);
+    }
+    ccs.removeAll(reviewers);
 
-      resolveGroup(project, changeNumber, reviewers, groupMembers, name);
+    int limit = limit(0);
+    if (reviewers.size() + ccs.size() > limit) {
+      oversized("the matching filters", limit, project, changeNumber);
+      if (oversizedPolicy == OversizedPolicy.REJECT) {
+        return new Result(ImmutableSet.of(), ImmutableSet.of(), false);
+      }
+      Limited r = limit(reviewers.stream(), limit, changeNumber);
+      Limited c = limit(ccs.stream(), limit - r.accounts.size(), changeNumber);
+      return new Result(r.accounts, c.accounts, true);
     }
-    return reviewers;
+    return new Result(reviewers, ccs, sampled);
   }
 
-  private boolean resolveAccount(
+  /**
+   * Expand names into the accounts they resolve to, regardless of the current user, so that the
+   * expansions can be shared between users. Names that couldn't be expanded within the timeout are
+   * skipped.
+   *
+   * @param names the account and group names to expand
+   * @param project the project name
+   * @param changeNumber the change Id
+   * @return the expansions of the names
+   */
+  Expansions expand(Set<String> names, Project.NameKey project, int changeNumber) {
+    try (Timer0.Context ctx = metrics.resolveLatency.start()) {
+      long deadline = System.nanoTime() + timeout.toNanos();
+      Map<String, Future<Expansion>> pending = new LinkedHashMap<>();
+      for (String name : names) {
+        pending.put(name, executor.submit(() -> expand(name, project)));
+      }
+
+      ImmutableMap.Builder<String, Expansion> expanded = ImmutableMap.builder();
+      boolean complete = true;
+      List<String> timedOut = new ArrayList<>();
+      for (Map.Entry<String, Future<Expansion>> e : pending.entrySet()) {
+        String name = e.getKey();
+        try {
+          expanded.put(name, e.getValue().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+        } catch (TimeoutException | InterruptedException x) {
+          if (x instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+          }
+          e.getValue().cancel(false);
+          timedOut.add(name);
+        } catch (ExecutionException x) {
+          logger.atSevere().withCause(x.getCause()).log(
+              "For the change %d of project %s: failed to resolve %s.",
+              changeNumber, project, name);
+          complete = false;
+        }
+      }
+      if (!timedOut.isEmpty()) {
+        metrics.resolveTimeouts.increment();
+        logger.atWarning().log(
+            "For the change %d of project %s: resolving %s did not complete within %d ms,"
+                + " continuing with the accounts resolved so far.",
+            changeNumber, project, timedOut, timeout.toMillis());
+        complete = false;
+      }
+      return new Expansions(expanded.build(), complete);
+    }
+  }
+
+  /**
+   * Collect the accounts that names were expanded to, checking their visibility for the current
+   * user.
+   *
+   * @param expansions the expansions of the names
+   * @param names the names to collect the accounts of
+   * @param project the project name
+   * @param changeNumber the change Id
+   * @param uploader account to skip, or null
+   * @param ignoreAccountVisibility if account visibiltiy should be ignored
+   * @return the {@link com.google.gerrit.entities.Account.Id}s.
+   */
+  Set<Account.Id> accounts(
+      Expansions expansions,
+      Set<String> names,
       Project.NameKey project,
       int changeNumber,
       @Nullable AccountInfo uploader,
-      Set<Account.Id> reviewers,
-      String accountName,
       boolean ignoreAccountVisibility) {
-    try {
-      AccountResolver.Result result =
-          ignoreAccountVisibility
-              ? accountResolver.resolveExactIgnoreVisibility(accountName)
-              : accountResolver.resolveExact(accountName);
-      if (result.asList().size() == 1) {
-        Account.Id id = result.asList().get(0).account().id();
-        if (uploader == null || id.get() != uploader._accountId) {
-          reviewers.add(id);
-        }
-        return true;
+    return visibleAccounts(
+            expansions, names, project, changeNumber, uploader, ignoreAccountVisibility)
+        .collect(toSet());
+  }
+
+  /**
+   * Lazily stream the accounts that names were expanded to and that are visible to the current
+   * user, in the order of the names. The visibility of each account or group is only checked when
+   * the stream reaches it, so that a limited stream stops early.
+   *
+   * @param expansions the expansions of the names
+   * @param names the names to stream the accounts of
+   * @param project the project name
+   * @param changeNumber the change Id
+   * @param candidates if not empty, only the accounts among the candidates are streamed
+   * @return the {@link com.google.gerrit.entities.Account.Id}s, possibly with duplicates
+   */
+  Stream<Account.Id> stream(
+      Expansions expansions,
+      Set<String> names,
+      Project.NameKey project,
+      int changeNumber,
+      Set<Account.Id> candidates) {
+    return names.stream()
+        .filter(expansions.byName::containsKey)
+        .flatMap(
+            name ->
+                visibleCandidates(
+                    expansions.byName.get(name), name, project, changeNumber, candidates));
+  }
+
+  /**
+   * Lazily expand names and stream the accounts they resolve to that are visible to the current
+   * user, in the order of the names. A name is only expanded on the calling thread when the stream
+   * reaches it, so that a limited stream doesn't expand the groups after the limit. Names that
+   * couldn't be expanded are skipped.
+   *
+   * @param names the account and group names to expand
+   * @param project the project name
+   * @param changeNumber the change Id
+   * @param candidates if not empty, only the accounts among the candidates are streamed
+   * @return the {@link com.google.gerrit.entities.Account.Id}s, possibly with duplicates
+   */
+  Stream<Account.Id> expandLazily(
+      Set<String> names, Project.NameKey project, int changeNumber, Set<Account.Id> candidates) {
+    return names.stream()
+        .flatMap(
+            name -> {
+              Expansion expansion;
+              try {
+                expansion = expand(name, project);
+              } catch (Exception e) {
+                logger.atSevere().withCause(e).log(
+                    "For the change %d of project %s: failed to resolve %s.",
+                    changeNumber, project, name);
+                return Stream.empty();
+              }
+              return visibleCandidates(expansion, name, project, changeNumber, candidates);
+            });
+  }
+
+  private Stream<Account.Id> visibleAccounts(
+      Expansions expansions,
+      Set<String> names,
+      Project.NameKey project,
+      int changeNumber,
+      @Nullable AccountInfo uploader,
+      boolean ignoreAccountVisibility) {
+    return names.stream()
+        .filter(expansions.byName::containsKey)
+        .flatMap(
+            name ->
+                visible(
+                        expansions.byName.get(name),
+                        name,
+                        project,
+                        changeNumber,
+                        uploader,
+                        ignoreAccountVisibility)
+                    .stream());
+  }
+
+  /* The limit of the accounts of a filter, or of a change if the filter has no limit. */
+  private int limit(int filterLimit) {
+    int limit = maxAccounts > 0 ? maxAccounts : Integer.MAX_VALUE;
+    return filterLimit > 0 ? Math.min(filterLimit, limit) : limit;
+  }
+
+  /* Takes up to limit distinct accounts. If there are more, either none of them are taken, or the
+   * ones ranking first by a hash seeded with the change number, so that the sample is the same for
+   * every attempt on the change while the accounts of different changes vary. The sample is kept
+   * in a bounded heap, rather than collecting all accounts to sample them. */
+  private Limited limit(Stream<Account.Id> accounts, int limit, int changeNumber) {
+    if (oversizedPolicy == OversizedPolicy.REJECT) {
+      ImmutableSet<Account.Id> taken =
+          accounts.distinct().limit(limit + 1L).collect(toImmutableSet());
+      return taken.size() > limit ? Limited.REJECTED : new Limited(taken, false);
+    }
+    Comparator<Account.Id> byRank =
+        Comparator.comparingLong((Account.Id a) -> rank(a, changeNumber))
+            .thenComparingInt(Account.Id::get);
+    PriorityQueue<Account.Id> sample = new PriorityQueue<>(byRank.reversed());
+    Set<Account.Id> taken = new HashSet<>();
+    boolean oversized = false;
+    for (Iterator<Account.Id> it = accounts.iterator(); it.hasNext(); ) {
+      Account.Id a = it.next();
+      if (taken.contains(a)) {
+        continue;
+      }
+      if (taken.size() < limit) {
+        sample.add(a);
+        taken.add(a);
+        continue;
+      }
+      /* An account that was dropped before ranks after the whole sample, and is dropped again. */
+      oversized = true;
+      if (limit > 0 && byRank.compare(a, sample.peek()) < 0) {
+        taken.remove(sample.poll());
+        sample.add(a);
+        taken.add(a);
       }
-      return false;
-    } catch (StorageException | IOException | ConfigInvalidException e) {
-      logger.atSevere().withCause(e).log(
-          "For the change %d of project %s: failed to resolve account %s.",
-          changeNumber, project, accountName);
-      return true;
     }
+    return new Limited(sample.stream().sorted(byRank).collect(toImmutableSet()), oversized);
   }
 
-  private void resolveGroup(
+  private static long rank(Account.Id account, int changeNumber) {
+    return Hashing.murmur3_128(changeNumber).hashInt(account.get()).asLong();
+  }
+
+  private void oversized(String what, int limit, Project.NameKey project, int changeNumber) {
+    metrics.incrementOversized(oversizedPolicy);
+    logger.atWarning().log(
+        "For the change %d of project %s: the accounts of %s exceed the limit of %d, %s.",
+        changeNumber,
+        project,
+        what,
+        limit,
+        oversizedPolicy == OversizedPolicy.REJECT
+            ? "adding none of them"
+            : "adding a sample of them");
+  }
+
+  /* Runs on the executor, or lazily on the calling thread. Identifiers and group members are
+   * resolved regardless of the user, so that they can be shared through the caches. */
+  private Expansion expand(String name, Project.NameKey project) throws Exception {
+    try (ManualRequestContext ctx = requestContext.open()) {
+      Identifier identifier = identifiers.get(name);
+      if (identifier.account() != null) {
+        return new Expansion(identifier, ImmutableSet.of(identifier.account()));
+      }
+      if (identifier.group() != null) {
+        return new Expansion(identifier, groupMembers.activeMembers(identifier.group(), project));
+      }
+      return new Expansion(identifier, ImmutableSet.of());
+    }
+  }
+
+  /* Runs on the calling thread, to check the visibility for the current user. */
+  private ImmutableSet<Account.Id> visible(
+      Expansion expansion,
+      String name,
       Project.NameKey project,
       int changeNumber,
-      Set<Account.Id> reviewers,
-      GroupMembers groupMembers,
-      String group) {
-    try {
-      Set<Account.Id> accounts =
-          groupMembers.listAccounts(groupResolver.get().parse(group).getGroupUUID(), project)
-              .stream()
-              .filter(Account::isActive)
-              .map(Account::id)
-              .collect(toSet());
-      reviewers.addAll(accounts);
-    } catch (UnprocessableEntityException e) {
+      @Nullable AccountInfo uploader,
+      boolean ignoreAccountVisibility) {
+    Identifier identifier = expansion.identifier;
+    if (identifier.account() != null
+        && (ignoreAccountVisibility || canSee(identifier.account()))) {
+      if (uploader == null || identifier.account().get() != uploader._accountId) {
+        return expansion.accounts;
+      }
+    } else if (identifier.group() != null && isVisible(identifier.group())) {
+      return expansion.accounts;
+    } else {
       logger.atWarning().log(
           "For the change %d of project %s: reviewer %s is neither an account nor a group.",
-          changeNumber, project, group);
-    } catch (NoSuchProjectException | IOException e) {
-      logger.atSevere().withCause(e).log(
-          "For the change %d of project %s: failed to list accounts for group %s.",
-          changeNumber, project, group);
+          changeNumber, project, name);
+    }
+    return ImmutableSet.of();
+  }
+
+  /* Looks up the candidates in the expansion rather than iterating over the members of large
+   * groups, and only checks the visibility if there is any candidate to suggest. */
+  private Stream<Account.Id> visibleCandidates(
+      Expansion expansion,
+      String name,
+      Project.NameKey project,
+      int changeNumber,
+      Set<Account.Id> candidates) {
+    if (candidates.isEmpty()) {
+      return visible(expansion, name, project, changeNumber, null, false).stream();
+    }
+    if (candidates.stream().noneMatch(expansion.accounts::contains)) {
+      return Stream.empty();
+    }
+    ImmutableSet<Account.Id> visible = visible(expansion, name, project, changeNumber, null, false);
+    return candidates.stream().filter(visible::contains);
+  }
+
+  private boolean canSee(Account.Id account) {
+    return accountControlFactory.get().get().canSee(account);
+  }
+
+  private boolean isVisible(AccountGroup.UUID group) {
+    try {
+      return groupControlFactory.get().controlFor(group).isVisible();
+    } catch (NoSuchGroupException e) {
+      return false;
+    }
+  }
+
+  private static class Expansion {
+    private final Identifier identifier;
+    private final ImmutableSet<Account.Id> accounts;
+
+    Expansion(Identifier identifier, ImmutableSet<Account.Id> accounts) {
+      this.identifier = identifier;
+      this.accounts = accounts;
+    }
+  }
+
+  /** The accounts or groups, and the accounts they expand to, of a set of names. */
+  static class Expansions {
+    private final ImmutableMap<String, Expansion> byName;
+    private final boolean complete;
+
+    private Expansions(ImmutableMap<String, Expansion> byName, boolean complete) {
+      this.byName = byName;
+      this.complete = complete;
+    }
+
+    /** Whether all names were expanded, or some were skipped due to a timeout or an error. */
+    boolean complete() {
+      return complete;
+    }
+
+    /** Whether the account is one of the accounts or group members the names expand to. */
+    boolean contains(Account.Id account) {
+      return byName.values().stream().anyMatch(e -> e.accounts.contains(account));
+    }
+
+    int size() {
+      return byName.values().stream().mapToInt(e -> e.accounts.size()).sum();
+    }
+  }
+
+  /* The accounts taken within a limit, and whether there were more. */
+  private static class Limited {
+    static final Limited NONE = new Limited(ImmutableSet.of(), false);
+    static final Limited REJECTED = new Limited(ImmutableSet.of(), true);
+
+    private final ImmutableSet<Account.Id> accounts;
+    private final boolean oversized;
+
+    Limited(ImmutableSet<Account.Id> accounts, boolean oversized) {
+      this.accounts = accounts;
+      this.oversized = oversized;
+    }
+  }
+
+  /** The reviewer and cc accounts that the identifiers of a change resolve to. */
+  static class Result {
+    private final Set<Account.Id> reviewers;
+    private final Set<Account.Id> ccs;
+    private final boolean sampled;
+
+    Result(Set<Account.Id> reviewers, Set<Account.Id> ccs) {
+      this(reviewers, ccs, false);
+    }
+
+    Result(Set<Account.Id> reviewers, Set<Account.Id> ccs, boolean sampled) {
+      this.reviewers = reviewers;
+      this.ccs = ccs;
+      this.sampled = sampled;
+    }
+
+    Set<Account.Id> reviewers() {
+      return reviewers;
+    }
+
+    Set<Account.Id> ccs() {
+      return ccs;
+    }
+
+    /** Whether the accounts were sampled, as they exceeded a limit; the sample is per change. */
+    boolean sampled() {
+      return sampled;
     }
   }
 }
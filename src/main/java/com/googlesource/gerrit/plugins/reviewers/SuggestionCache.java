@@ -0,0 +1,207 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.entities.Account;
+import com.google.gerrit.entities.Change;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.entities.RefNames;
+import com.google.gerrit.exceptions.StorageException;
+import com.google.gerrit.index.query.QueryParseException;
+import com.google.gerrit.server.cache.CacheModule;
+import com.google.gerrit.server.git.GitRepositoryManager;
+import com.google.gerrit.server.query.change.ChangeData;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.googlesource.gerrit.plugins.reviewers.ReviewersResolver.Expansions;
+import com.googlesource.gerrit.plugins.reviewers.config.FilterSnapshot;
+import com.googlesource.gerrit.plugins.reviewers.config.FilterSnapshotCache;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Cache of the reviewers suggested for a change, so that the suggestions requested for every
+ * keystroke in the "Add Reviewer" dialog are served from memory.
+ *
+ * <p>An entry is only served for the revision of the change meta ref and the {@link
+ * FilterSnapshot} it was computed for. When the suggestions are prefetched, the accounts and group
+ * members the matching reviewer identifiers expand to are cached too, regardless of the user; their
+ * visibility is checked for the user the suggestions are served to. Otherwise only the matching
+ * identifiers are cached, and are expanded as the suggestions are streamed. Suggestions that depend
+ * on the user, because a filter like {@code owner:self} was evaluated, or that are incomplete,
+ * because some identifiers couldn't be resolved, are not cached.
+ */
+@Singleton
+class SuggestionCache {
+  static final String CACHE_NAME = "suggestions";
+
+  static Module module() {
+    return new CacheModule() {
+      @Override
+      protected void configure() {
+        cache(CACHE_NAME, Change.Id.class, Suggestion.class)
+            .maximumWeight(100_000)
+            .weigher(SuggestionWeigher.class)
+            .expireAfterWrite(Duration.ofMinutes(15));
+      }
+    };
+  }
+
+  private final Cache<Change.Id, Suggestion> cache;
+  private final GitRepositoryManager repoManager;
+  private final FilterSnapshotCache filters;
+  private final ReviewersFilterUtil filterUtil;
+  private final ReviewersResolver resolver;
+  private final ChangeData.Factory changeDataFactory;
+
+  @Inject
+  SuggestionCache(
+      @Named(CACHE_NAME) Cache<Change.Id, Suggestion> cache,
+      GitRepositoryManager repoManager,
+      FilterSnapshotCache filters,
+      ReviewersFilterUtil filterUtil,
+      ReviewersResolver resolver,
+      ChangeData.Factory changeDataFactory) {
+    this.cache = cache;
+    this.repoManager = repoManager;
+    this.filters = filters;
+    this.filterUtil = filterUtil;
+    this.resolver = resolver;
+    this.changeDataFactory = changeDataFactory;
+  }
+
+  /**
+   * Get the reviewers suggested for a change. Unless the suggestions were prefetched, the
+   * identifiers are only expanded when the stream reaches them, so that a limited stream doesn't
+   * expand the groups after the limit; the visibility of the accounts and groups is always checked
+   * lazily.
+   *
+   * @param project the project of the change
+   * @param changeId the change
+   * @param candidates if not empty, only the candidates among the suggested accounts are returned
+   * @return the distinct suggested accounts that are visible to the current user
+   */
+  Stream<Account.Id> get(Project.NameKey project, Change.Id changeId, Set<Account.Id> candidates)
+      throws StorageException, QueryParseException {
+    FilterSnapshot snapshot = filters.get(project);
+    if (snapshot.isEmpty()) {
+      return Stream.empty();
+    }
+    Suggestion s = load(project, changeId, snapshot, false);
+    Stream<Account.Id> accounts =
+        s.expansions != null
+            ? resolver.stream(s.expansions, s.reviewers, project, changeId.get(), candidates)
+            : resolver.expandLazily(s.reviewers, project, changeId.get(), candidates);
+    return accounts.distinct();
+  }
+
+  /** Compute and cache the reviewers suggested for a change, unless they are cached already. */
+  void prefetch(Project.NameKey project, Change.Id changeId)
+      throws StorageException, QueryParseException {
+    FilterSnapshot snapshot = filters.get(project);
+    if (!snapshot.isEmpty()) {
+      load(project, changeId, snapshot, true);
+    }
+  }
+
+  /* Account changes don't alter the meta revision of the changes, but may alter the accounts the
+   * identifiers expand to. */
+  void evict(Account.Id account) {
+    cache.asMap().values().removeIf(s -> s.expansions != null && s.expansions.contains(account));
+  }
+
+  void evictAll() {
+    cache.invalidateAll();
+  }
+
+  /* Only expands the matching identifiers if expand is set, or keeps the expansions of a cached
+   * entry. The identifiers of a valid entry are reused without matching the filters again. */
+  private Suggestion load(
+      Project.NameKey project, Change.Id changeId, FilterSnapshot snapshot, boolean expand)
+      throws StorageException, QueryParseException {
+    ObjectId meta = metaRevision(project, changeId);
+    Suggestion s = cache.getIfPresent(changeId);
+    boolean valid = s != null && meta != null && meta.equals(s.meta) && snapshot == s.snapshot;
+    if (valid && (s.expansions != null || !expand)) {
+      return s;
+    }
+    ImmutableSet<String> reviewers;
+    boolean cacheable;
+    if (valid) {
+      reviewers = s.reviewers;
+      cacheable = true;
+    } else {
+      FilterMatches matches =
+          filterUtil.evaluate(changeDataFactory.create(project, changeId), snapshot);
+      reviewers = matches.reviewers();
+      cacheable = !matches.dependsOnUser();
+    }
+    Expansions expansions = expand ? resolver.expand(reviewers, project, changeId.get()) : null;
+    s = new Suggestion(meta, snapshot, reviewers, expansions);
+    if (meta != null && cacheable && (expansions == null || expansions.complete())) {
+      cache.put(changeId, s);
+    }
+    return s;
+  }
+
+  @Nullable
+  private ObjectId metaRevision(Project.NameKey project, Change.Id changeId) {
+    try (Repository repo = repoManager.openRepository(project)) {
+      Ref ref = repo.exactRef(RefNames.changeMetaRef(changeId));
+      return ref != null ? ref.getObjectId() : null;
+    } catch (IOException e) {
+      throw new StorageException(e);
+    }
+  }
+
+  static class Suggestion {
+    @Nullable private final ObjectId meta;
+    private final FilterSnapshot snapshot;
+    private final ImmutableSet<String> reviewers;
+    @Nullable private final Expansions expansions;
+
+    Suggestion(
+        @Nullable ObjectId meta,
+        FilterSnapshot snapshot,
+        ImmutableSet<String> reviewers,
+        @Nullable Expansions expansions) {
+      this.meta = meta;
+      this.snapshot = snapshot;
+      this.reviewers = reviewers;
+      this.expansions = expansions;
+    }
+  }
+
+  static class SuggestionWeigher implements Weigher<Change.Id, Suggestion> {
+    @Override
+    public int weigh(Change.Id change, Suggestion suggestion) {
+      return 1
+          + (suggestion.expansions != null
+              ? suggestion.expansions.size()
+              : suggestion.reviewers.size());
+    }
+  }
+}
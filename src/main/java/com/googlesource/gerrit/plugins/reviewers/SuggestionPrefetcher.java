@@ -0,0 +1,82 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers;
+
+import static com.google.gerrit.extensions.client.ChangeStatus.MERGED;
+
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.entities.Change;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.exceptions.StorageException;
+import com.google.gerrit.extensions.common.ChangeInfo;
+import com.google.gerrit.extensions.events.RevisionCreatedListener;
+import com.google.gerrit.index.query.QueryParseException;
+import com.google.gerrit.server.util.ManualRequestContext;
+import com.google.gerrit.server.util.OneOffRequestContext;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Computes the reviewers suggested for a change when a revision is created, so that the "Add
+ * Reviewer" dialog is served from the {@link SuggestionCache}.
+ */
+@Singleton
+class SuggestionPrefetcher implements RevisionCreatedListener {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private final SuggestionCache suggestions;
+  private final OneOffRequestContext requestContext;
+  private final ExecutorService executor;
+
+  @Inject
+  SuggestionPrefetcher(
+      SuggestionCache suggestions,
+      OneOffRequestContext requestContext,
+      @SuggestExecutor ExecutorService executor) {
+    this.suggestions = suggestions;
+    this.requestContext = requestContext;
+    this.executor = executor;
+  }
+
+  @Override
+  public void onRevisionCreated(RevisionCreatedListener.Event event) {
+    ChangeInfo c = event.getChange();
+    if (c.status.equals(MERGED)) {
+      return;
+    }
+    Project.NameKey project = Project.nameKey(c.project);
+    Change.Id changeId = Change.id(c._number);
+    @SuppressWarnings("unused")
+    Future<?> ignored = executor.submit(() -> prefetch(project, changeId));
+  }
+
+  private void prefetch(Project.NameKey project, Change.Id changeId) {
+    try (ManualRequestContext ctx = requestContext.open()) {
+      suggestions.prefetch(project, changeId);
+    } catch (StorageException x) {
+      logger.atWarning().withCause(x).log(
+          "Failed to prefetch the reviewers suggested for change %d of project %s",
+          changeId.get(), project.get());
+    } catch (QueryParseException x) {
+      // Filters like owner:self can't be parsed without a user; they are matched when the
+      // suggestions are requested.
+      logger.atFine().log(
+          "Not prefetching the reviewers suggested for change %d of project %s: %s",
+          changeId.get(), project.get(), x.getMessage());
+    }
+  }
+}
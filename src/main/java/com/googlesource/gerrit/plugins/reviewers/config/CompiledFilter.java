@@ -0,0 +1,175 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers.config;
+
+import static com.googlesource.gerrit.plugins.reviewers.config.ForProject.KEY_CC;
+import static com.googlesource.gerrit.plugins.reviewers.config.ForProject.KEY_MAX_ACCOUNTS;
+import static com.googlesource.gerrit.plugins.reviewers.config.ForProject.KEY_REVIEWER;
+import static com.googlesource.gerrit.plugins.reviewers.config.ForProject.SECTION_FILTER;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.flogger.FluentLogger;
+import java.util.Objects;
+import org.eclipse.jgit.lib.Config;
+
+/**
+ * Immutable runtime representation of a filter section in reviewers.config.
+ *
+ * <p>Unlike {@link ReviewerFilterCollection}, which is used to edit the configuration, compiled
+ * filters are not validated when they are built; invalid queries are only reported when they are
+ * matched against a change.
+ */
+public final class CompiledFilter {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private final String filter;
+  private final ImmutableSet<String> reviewers;
+  private final ImmutableSet<String> ccs;
+  private final int maxAccounts;
+  private final boolean matchesAll;
+  private final FilterConstraints constraints;
+  private final boolean dependsOnUser;
+
+  CompiledFilter(
+      String filter, ImmutableSet<String> reviewers, ImmutableSet<String> ccs, int maxAccounts) {
+    this.filter = filter;
+    this.reviewers = reviewers;
+    this.ccs = ccs;
+    this.maxAccounts = maxAccounts;
+    this.matchesAll = Strings.isNullOrEmpty(filter) || "*".equals(filter);
+    this.constraints = FilterConstraints.analyze(filter);
+    this.dependsOnUser = FilterConstraints.dependsOnUser(filter);
+  }
+
+  static CompiledFilter create(Config cfg, String filter) {
+    return new CompiledFilter(
+        filter,
+        ImmutableSet.copyOf(cfg.getStringList(SECTION_FILTER, filter, KEY_REVIEWER)),
+        ImmutableSet.copyOf(cfg.getStringList(SECTION_FILTER, filter, KEY_CC)),
+        maxAccounts(cfg, filter));
+  }
+
+  /* An invalid limit must not prevent loading the other filters. */
+  private static int maxAccounts(Config cfg, String filter) {
+    try {
+      return cfg.getInt(SECTION_FILTER, filter, KEY_MAX_ACCOUNTS, 0);
+    } catch (IllegalArgumentException e) {
+      logger.atWarning().log(
+          "Ignoring invalid %s of filter \"%s\": %s", KEY_MAX_ACCOUNTS, filter, e.getMessage());
+      return 0;
+    }
+  }
+
+  /**
+   * Inherit the filter section of the same name in the parent project, as Gerrit inherits plugin
+   * configs: the values of a key either replace those of the parent, or are merged with them. The
+   * {@code maxAccounts} of the filter always replaces that of the parent.
+   *
+   * @param parent the filter section of the same name in the parent project
+   * @param merge whether to merge the values of a key with those of the parent
+   * @return the inherited filter
+   */
+  CompiledFilter inherit(CompiledFilter parent, boolean merge) {
+    return new CompiledFilter(
+        filter,
+        inherit(reviewers, parent.reviewers, merge),
+        inherit(ccs, parent.ccs, merge),
+        maxAccounts > 0 ? maxAccounts : parent.maxAccounts);
+  }
+
+  private static ImmutableSet<String> inherit(
+      ImmutableSet<String> values, ImmutableSet<String> parent, boolean merge) {
+    if (values.isEmpty()) {
+      return parent;
+    }
+    if (merge) {
+      return ImmutableSet.<String>builder().addAll(values).addAll(parent).build();
+    }
+    return values;
+  }
+
+  public String filter() {
+    return filter;
+  }
+
+  public ImmutableSet<String> reviewers() {
+    return reviewers;
+  }
+
+  public ImmutableSet<String> ccs() {
+    return ccs;
+  }
+
+  /**
+   * Maximum number of accounts the reviewers and ccs of the filter may expand to; only the global
+   * limit applies if not positive.
+   */
+  public int maxAccounts() {
+    return maxAccounts;
+  }
+
+  /** Whether the filter matches every change without the need to evaluate a query. */
+  public boolean matchesAll() {
+    return matchesAll;
+  }
+
+  FilterConstraints constraints() {
+    return constraints;
+  }
+
+  /** Whether the filter has {@code file:} or {@code path:} regular expressions. */
+  public boolean hasFilePatterns() {
+    return !constraints.filePatterns().isEmpty();
+  }
+
+  /**
+   * Whether the filter query is entirely described by the conditions the {@link FilterSnapshot}
+   * indexes, so that a candidate filter whose file patterns match needs no query evaluation.
+   */
+  public boolean isComplete() {
+    return constraints.complete();
+  }
+
+  /**
+   * Whether the predicates of the filter query may depend on the user it is parsed for, or on the
+   * time it is parsed at, so that they can't be shared between evaluations.
+   */
+  public boolean dependsOnUser() {
+    return dependsOnUser;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof CompiledFilter) {
+      CompiledFilter other = (CompiledFilter) o;
+      return Objects.equals(filter, other.filter)
+          && reviewers.equals(other.reviewers)
+          && ccs.equals(other.ccs)
+          && maxAccounts == other.maxAccounts;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(filter, reviewers, ccs, maxAccounts);
+  }
+
+  @Override
+  public String toString() {
+    return filter;
+  }
+}
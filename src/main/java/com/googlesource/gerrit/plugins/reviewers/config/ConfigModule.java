@@ -14,6 +14,10 @@
 package com.googlesource.gerrit.plugins.reviewers.config;
 
 import com.google.gerrit.extensions.config.FactoryModule;
+import com.google.gerrit.extensions.events.GitReferenceUpdatedListener;
+import com.google.gerrit.extensions.registration.DynamicSet;
+import com.google.gerrit.lifecycle.LifecycleModule;
+import com.google.gerrit.server.cache.CacheRemovalListener;
 
 public class ConfigModule extends FactoryModule {
 
@@ -21,5 +25,16 @@ public class ConfigModule extends FactoryModule {
   protected void configure() {
     factory(ForProject.Factory.class);
     factory(ReviewerFilterCollection.Factory.class);
+    install(FilterSnapshotCache.module());
+    DynamicSet.bind(binder(), GitReferenceUpdatedListener.class)
+        .to(FilterSnapshotInvalidator.class);
+    DynamicSet.bind(binder(), CacheRemovalListener.class).to(FilterSnapshotInvalidator.class);
+    install(
+        new LifecycleModule() {
+          @Override
+          protected void configure() {
+            listener().to(FilterSnapshotWarmUp.class);
+          }
+        });
   }
 }
@@ -0,0 +1,211 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers.config;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Ints;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Matches the {@code file:} and {@code path:} regular expressions of all filters of a snapshot
+ * against the files of a change in a single pass.
+ *
+ * <p>The literal prefixes of all expressions are compiled into one trie, an automaton anchored at
+ * the start of the path. Walking a path through the trie reports every expression whose literal
+ * prefix the path starts with, regardless of the number of expressions. For expressions of the
+ * form {@code ^prefix.*} this is an exact match; for any other expression it is a necessary
+ * condition, and the change still has to be matched against the full query.
+ */
+public final class FilePatternMatcher {
+  static final FilePatternMatcher EMPTY = new FilePatternMatcher(ImmutableMap.of(), new Node());
+
+  /* Gerrit matches the expressions as dk.brics automata, whose operators include @ (any string),
+   * ~ (complement), & (intersection), # (empty language), "..." (a quoted string) and <n-m> (a
+   * numeric interval), on top of the Java regular expression metacharacters. */
+  private static final String META_CHARACTERS = ".[]{}()*+?^$|\\@~&#\"<>";
+
+  private final ImmutableMap<String, Integer> ids;
+  private final Node root;
+
+  private FilePatternMatcher(ImmutableMap<String, Integer> ids, Node root) {
+    this.ids = ids;
+    this.root = root;
+  }
+
+  static FilePatternMatcher create(Set<String> patterns) {
+    if (patterns.isEmpty()) {
+      return EMPTY;
+    }
+    ImmutableMap.Builder<String, Integer> ids = ImmutableMap.builder();
+    MutableNode root = new MutableNode();
+    int id = 0;
+    for (String pattern : patterns) {
+      ids.put(pattern, id);
+      root.insert(literalPrefix(pattern), id++);
+    }
+    return new FilePatternMatcher(ids.build(), root.freeze());
+  }
+
+  /**
+   * Match the paths against all expressions.
+   *
+   * @param paths the paths of the files modified by a change
+   * @return the result of the match, to be queried with {@link Result#matches(CompiledFilter)}
+   */
+  Result match(Iterable<String> paths) {
+    BitSet matched = new BitSet(ids.size());
+    for (String path : paths) {
+      Node n = root;
+      n.mark(matched);
+      for (int i = 0; i < path.length(); i++) {
+        n = n.child(path.charAt(i));
+        if (n == null) {
+          break;
+        }
+        n.mark(matched);
+      }
+      if (matched.cardinality() == ids.size()) {
+        break;
+      }
+    }
+    return new Result(matched);
+  }
+
+  public class Result {
+    private final BitSet matched;
+
+    private Result(BitSet matched) {
+      this.matched = matched;
+    }
+
+    /**
+     * Whether each of the {@code file:} and {@code path:} expressions of the filter may match at
+     * least one of the paths. If the filter is {@link CompiledFilter#isComplete() complete} and
+     * was a candidate for the change, it matches the change.
+     */
+    public boolean matches(CompiledFilter filter) {
+      for (String pattern : filter.constraints().filePatterns()) {
+        Integer id = ids.get(pattern);
+        if (id != null && !matched.get(id)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Whether the expression is of the form {@code ^prefix.*}, with an optional trailing {@code $},
+   * so that it matches exactly the paths starting with its literal prefix.
+   */
+  static boolean isPrefixPattern(String pattern) {
+    if (!pattern.startsWith("^")) {
+      return false;
+    }
+    String rest = pattern.substring(1 + literalLength(pattern));
+    return ".*".equals(rest) || ".*$".equals(rest);
+  }
+
+  /**
+   * Get the literal prefix that every path matched by the expression starts with. Gerrit ignores a
+   * leading {@code ^}, and matches the rest of the expression against the entire path.
+   */
+  static String literalPrefix(String pattern) {
+    if (!pattern.startsWith("^") || pattern.indexOf('|') >= 0) {
+      return "";
+    }
+    int end = 1 + literalLength(pattern);
+    if (end < pattern.length() && "*?{".indexOf(pattern.charAt(end)) >= 0) {
+      // The last literal character is optional.
+      end--;
+    }
+    return pattern.substring(1, Math.max(1, end));
+  }
+
+  private static int literalLength(String pattern) {
+    int i = 1;
+    while (i < pattern.length() && META_CHARACTERS.indexOf(pattern.charAt(i)) < 0) {
+      i++;
+    }
+    return i - 1;
+  }
+
+  private static class Node {
+    private final char[] labels;
+    private final Node[] children;
+    private final int[] ids;
+
+    Node() {
+      this(new char[0], new Node[0], new int[0]);
+    }
+
+    Node(char[] labels, Node[] children, int[] ids) {
+      this.labels = labels;
+      this.children = children;
+      this.ids = ids;
+    }
+
+    Node child(char c) {
+      int lo = 0;
+      int hi = labels.length - 1;
+      while (lo <= hi) {
+        int mid = (lo + hi) >>> 1;
+        if (labels[mid] < c) {
+          lo = mid + 1;
+        } else if (labels[mid] > c) {
+          hi = mid - 1;
+        } else {
+          return children[mid];
+        }
+      }
+      return null;
+    }
+
+    void mark(BitSet matched) {
+      for (int id : ids) {
+        matched.set(id);
+      }
+    }
+  }
+
+  private static class MutableNode {
+    private final TreeMap<Character, MutableNode> children = new TreeMap<>();
+    private final List<Integer> ids = new ArrayList<>();
+
+    void insert(String literal, int id) {
+      MutableNode n = this;
+      for (int i = 0; i < literal.length(); i++) {
+        n = n.children.computeIfAbsent(literal.charAt(i), c -> new MutableNode());
+      }
+      n.ids.add(id);
+    }
+
+    Node freeze() {
+      char[] labels = new char[children.size()];
+      Node[] frozen = new Node[children.size()];
+      int i = 0;
+      for (Map.Entry<Character, MutableNode> e : children.entrySet()) {
+        labels[i] = e.getKey();
+        frozen[i++] = e.getValue().freeze();
+      }
+      return new Node(labels, frozen, Ints.toArray(ids));
+    }
+  }
+}
@@ -0,0 +1,372 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers.config;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.entities.Change;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.entities.RefNames;
+import com.google.gerrit.index.query.QueryParseException;
+import com.google.gerrit.index.query.QueryParser;
+import java.util.Optional;
+import org.antlr.runtime.tree.Tree;
+
+/**
+ * Constraints on the project, destination ref, status and modified files of a change that are
+ * implied by the top-level conjuncts of a filter query.
+ *
+ * <p>The constraints are derived from the query syntax only and are necessary conditions for the
+ * query to match: a change violating them can be skipped without evaluating the query. They are
+ * also sufficient if the constraints are {@link #complete()}, otherwise a change satisfying them
+ * still has to be matched against the full query.
+ */
+final class FilterConstraints {
+  /* Operators whose predicates don't depend on the user the query is parsed for. Operators on
+   * dates are not, as their predicates compare against the time the query was parsed at. */
+  private static final ImmutableSet<String> USER_INDEPENDENT_FIELDS =
+      ImmutableSet.of(
+          "added",
+          "branch",
+          "change",
+          "commit",
+          "deleted",
+          "delta",
+          "dir",
+          "directory",
+          "ext",
+          "extension",
+          "file",
+          "footer",
+          "hashtag",
+          "inhashtag",
+          "intopic",
+          "message",
+          "onlyextensions",
+          "onlyexts",
+          "path",
+          "prefixhashtag",
+          "prefixtopic",
+          "project",
+          "projects",
+          "ref",
+          "repo",
+          "repository",
+          "size",
+          "status",
+          "subject",
+          "topic");
+
+  /* Values of the is: operator whose predicates don't depend on the user. */
+  private static final ImmutableSet<String> USER_INDEPENDENT_IS =
+      ImmutableSet.of(
+          "abandoned",
+          "cherrypick",
+          "closed",
+          "merge",
+          "merged",
+          "new",
+          "open",
+          "pending",
+          "private",
+          "pure-revert",
+          "wip");
+
+  static final FilterConstraints NONE =
+      new FilterConstraints(
+          ImmutableSet.of(),
+          null,
+          ImmutableSet.of(),
+          ImmutableSet.of(),
+          ImmutableList.of(),
+          false);
+
+  private final ImmutableSet<String> refs;
+  @Nullable private final String refPrefix;
+  private final ImmutableSet<Project.NameKey> projects;
+  private final ImmutableSet<Change.Status> statuses;
+  private final ImmutableList<String> filePatterns;
+  private final boolean complete;
+
+  private FilterConstraints(
+      ImmutableSet<String> refs,
+      @Nullable String refPrefix,
+      ImmutableSet<Project.NameKey> projects,
+      ImmutableSet<Change.Status> statuses,
+      ImmutableList<String> filePatterns,
+      boolean complete) {
+    this.refs = refs;
+    this.refPrefix = refPrefix;
+    this.projects = projects;
+    this.statuses = statuses;
+    this.filePatterns = filePatterns;
+    this.complete = complete;
+  }
+
+  /** Exact destination refs the change must be on; empty if not constrained by exact refs. */
+  ImmutableSet<String> refs() {
+    return refs;
+  }
+
+  /** Prefix the destination ref of the change must start with, or null. */
+  @Nullable
+  String refPrefix() {
+    return refPrefix;
+  }
+
+  /**
+   * Regular expressions of {@code file:} and {@code path:} conjuncts; each of them has to match
+   * at least one of the files modified by the change.
+   */
+  ImmutableList<String> filePatterns() {
+    return filePatterns;
+  }
+
+  /**
+   * Whether the query is entirely described by the constraints, so that a change satisfying all of
+   * them matches the query without evaluating it.
+   */
+  boolean complete() {
+    return complete;
+  }
+
+  boolean acceptsRef(String ref) {
+    if (!refs.isEmpty()) {
+      return refs.contains(ref);
+    }
+    return refPrefix == null || ref.startsWith(refPrefix);
+  }
+
+  boolean acceptsProject(Project.NameKey project) {
+    return projects.isEmpty() || projects.contains(project);
+  }
+
+  boolean acceptsStatus(Change.Status status) {
+    return statuses.isEmpty() || statuses.contains(status);
+  }
+
+  static FilterConstraints analyze(String query) {
+    if (Strings.isNullOrEmpty(query) || "*".equals(query)) {
+      return NONE;
+    }
+    Tree root;
+    try {
+      root = QueryParser.parse(query);
+    } catch (QueryParseException e) {
+      return NONE;
+    }
+    Builder b = new Builder();
+    if (root.getType() == QueryParser.AND) {
+      for (int i = 0; i < root.getChildCount(); i++) {
+        b.conjunct(root.getChild(i));
+      }
+    } else {
+      b.conjunct(root);
+    }
+    return b.build();
+  }
+
+  /**
+   * Whether the predicates of the query may depend on the user it is parsed for, like those of
+   * {@code owner:self}, {@code is:visible} or named {@code query:} operators, or on the time it is
+   * parsed at, like those of {@code age:}. Only queries built of operators known to be independent
+   * of both are not; the predicates of any other query, or of a query that can't be parsed, have to
+   * be parsed for every evaluation.
+   */
+  static boolean dependsOnUser(String query) {
+    if (Strings.isNullOrEmpty(query) || "*".equals(query)) {
+      return false;
+    }
+    try {
+      return dependsOnUser(QueryParser.parse(query));
+    } catch (QueryParseException e) {
+      return true;
+    }
+  }
+
+  private static boolean dependsOnUser(Tree node) {
+    switch (node.getType()) {
+      case QueryParser.AND:
+      case QueryParser.OR:
+      case QueryParser.NOT:
+        for (int i = 0; i < node.getChildCount(); i++) {
+          if (dependsOnUser(node.getChild(i))) {
+            return true;
+          }
+        }
+        return false;
+      case QueryParser.FIELD_NAME:
+        String field = node.getText();
+        if ("is".equals(field)) {
+          return !Builder.isField(node)
+              || !USER_INDEPENDENT_IS.contains(node.getChild(0).getText());
+        }
+        return !USER_INDEPENDENT_FIELDS.contains(field);
+      default:
+        /* Bare terms are matched against the default fields, which include accounts. */
+        return true;
+    }
+  }
+
+  private static class Builder {
+    private ImmutableSet<String> refs = ImmutableSet.of();
+    private String refPrefix;
+    private ImmutableSet<Project.NameKey> projects = ImmutableSet.of();
+    private ImmutableSet<Change.Status> statuses = ImmutableSet.of();
+    private final ImmutableList.Builder<String> filePatterns = ImmutableList.builder();
+    private boolean complete = true;
+
+    void conjunct(Tree node) {
+      if (!analyzed(node)) {
+        complete = false;
+      }
+    }
+
+    /* Returns whether the conjunct is entirely described by the collected constraints. */
+    private boolean analyzed(Tree node) {
+      if (node.getType() == QueryParser.OR) {
+        return disjunction(node);
+      }
+      if (!isField(node)) {
+        return false;
+      }
+      String field = node.getText();
+      String value = node.getChild(0).getText();
+      switch (field) {
+        case "branch":
+        case "ref":
+          if (!refs.isEmpty() || refPrefix != null) {
+            return false;
+          }
+          Optional<String> ref = exactRef(field, value);
+          if (ref.isPresent()) {
+            refs = ImmutableSet.of(ref.get());
+            return true;
+          }
+          refPrefix = refPrefix(field, value);
+          return refPrefix != null;
+        case "project":
+          if (!projects.isEmpty() || value.startsWith("^")) {
+            return false;
+          }
+          projects = ImmutableSet.of(Project.nameKey(value));
+          return true;
+        case "status":
+        case "is":
+          if (!statuses.isEmpty()) {
+            return false;
+          }
+          statuses = statuses(value);
+          return !statuses.isEmpty();
+        case "file":
+        case "path":
+          if (!value.startsWith("^")) {
+            return false;
+          }
+          filePatterns.add(value);
+          return FilePatternMatcher.isPrefixPattern(value);
+        default:
+          return false;
+      }
+    }
+
+    /* A disjunction of exact branches or refs, like (branch:a OR branch:b), constrains the ref
+     * to one of them. Any other disjunction is not analyzed. */
+    private boolean disjunction(Tree node) {
+      if (!refs.isEmpty() || refPrefix != null) {
+        return false;
+      }
+      ImmutableSet.Builder<String> b = ImmutableSet.builder();
+      for (int i = 0; i < node.getChildCount(); i++) {
+        Tree child = node.getChild(i);
+        if (!isField(child)) {
+          return false;
+        }
+        String field = child.getText();
+        if (!"branch".equals(field) && !"ref".equals(field)) {
+          return false;
+        }
+        Optional<String> ref = exactRef(field, child.getChild(0).getText());
+        if (!ref.isPresent()) {
+          return false;
+        }
+        b.add(ref.get());
+      }
+      refs = b.build();
+      return true;
+    }
+
+    FilterConstraints build() {
+      ImmutableList<String> patterns = filePatterns.build();
+      if (refs.isEmpty()
+          && refPrefix == null
+          && projects.isEmpty()
+          && statuses.isEmpty()
+          && patterns.isEmpty()) {
+        return NONE;
+      }
+      return new FilterConstraints(refs, refPrefix, projects, statuses, patterns, complete);
+    }
+
+    private static boolean isField(Tree node) {
+      return node.getType() == QueryParser.FIELD_NAME
+          && node.getChildCount() == 1
+          && node.getChild(0).getChildCount() == 0;
+    }
+
+    private static Optional<String> exactRef(String field, String value) {
+      if (value.startsWith("^")) {
+        return Optional.empty();
+      }
+      if ("branch".equals(field)) {
+        return Optional.of(RefNames.fullName(value));
+      }
+      return value.startsWith(RefNames.REFS) ? Optional.of(value) : Optional.empty();
+    }
+
+    /* Derives the literal prefix of ref regular expressions like ^release/.* or
+     * ^refs/heads/stable-.*, so that changes on other refs can be skipped. */
+    @Nullable
+    private static String refPrefix(String field, String value) {
+      if (!FilePatternMatcher.isPrefixPattern(value)) {
+        return null;
+      }
+      String literal = FilePatternMatcher.literalPrefix(value);
+      if ("branch".equals(field)) {
+        return RefNames.fullName(literal);
+      }
+      return literal.startsWith(RefNames.REFS) ? literal : null;
+    }
+
+    private static ImmutableSet<Change.Status> statuses(String value) {
+      switch (value) {
+        case "open":
+        case "pending":
+        case "new":
+          return ImmutableSet.of(Change.Status.NEW);
+        case "closed":
+          return ImmutableSet.of(Change.Status.MERGED, Change.Status.ABANDONED);
+        case "merged":
+          return ImmutableSet.of(Change.Status.MERGED);
+        case "abandoned":
+          return ImmutableSet.of(Change.Status.ABANDONED);
+        default:
+          return ImmutableSet.of();
+      }
+    }
+  }
+}
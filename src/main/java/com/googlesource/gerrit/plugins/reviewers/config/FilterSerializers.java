@@ -0,0 +1,222 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers.config;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.cache.serialize.CacheSerializer;
+import com.googlesource.gerrit.plugins.reviewers.config.FilterSnapshotCache.Key;
+import com.googlesource.gerrit.plugins.reviewers.config.FilterSnapshotCache.ProjectFilters;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Compact binary serializers of the entries of the persistent {@link FilterSnapshotCache} caches.
+ *
+ * <p>Snapshots are stored as the plain filters they were built from, and are indexed again when
+ * they are read, which is cheap compared to reading the configurations of the projects from git.
+ */
+class FilterSerializers {
+  static class KeySerializer implements CacheSerializer<Key> {
+    @Override
+    public byte[] serialize(Key key) {
+      return write(
+          out -> {
+            writeString(out, key.project().get());
+            out.writeBoolean(key.mergeFilters());
+            out.writeInt(key.revisions().size());
+            for (Map.Entry<Project.NameKey, ObjectId> e : key.revisions().entrySet()) {
+              writeString(out, e.getKey().get());
+              writeObjectId(out, e.getValue());
+            }
+          });
+    }
+
+    @Override
+    public Key deserialize(byte[] in) {
+      return read(
+          in,
+          data -> {
+            Project.NameKey project = Project.nameKey(readString(data));
+            boolean mergeFilters = data.readBoolean();
+            int n = data.readInt();
+            ImmutableMap.Builder<Project.NameKey, ObjectId> revisions =
+                ImmutableMap.builderWithExpectedSize(n);
+            for (int i = 0; i < n; i++) {
+              revisions.put(Project.nameKey(readString(data)), readObjectId(data));
+            }
+            return new Key(project, revisions.build(), mergeFilters);
+          });
+    }
+  }
+
+  static class ProjectKeySerializer implements CacheSerializer<Project.NameKey> {
+    @Override
+    public byte[] serialize(Project.NameKey project) {
+      return project.get().getBytes(UTF_8);
+    }
+
+    @Override
+    public Project.NameKey deserialize(byte[] in) {
+      return Project.nameKey(new String(in, UTF_8));
+    }
+  }
+
+  static class SnapshotSerializer implements CacheSerializer<FilterSnapshot> {
+    @Override
+    public byte[] serialize(FilterSnapshot snapshot) {
+      return write(
+          out -> {
+            out.writeBoolean(snapshot.project() != null);
+            if (snapshot.project() != null) {
+              writeString(out, snapshot.project().get());
+              writeFilters(out, snapshot.filters());
+            }
+          });
+    }
+
+    @Override
+    public FilterSnapshot deserialize(byte[] in) {
+      return read(
+          in,
+          data -> {
+            if (!data.readBoolean()) {
+              return FilterSnapshot.EMPTY;
+            }
+            Project.NameKey project = Project.nameKey(readString(data));
+            return FilterSnapshot.create(project, readFilters(data));
+          });
+    }
+  }
+
+  static class ProjectFiltersSerializer implements CacheSerializer<ProjectFilters> {
+    @Override
+    public byte[] serialize(ProjectFilters filters) {
+      return write(
+          out -> {
+            writeObjectId(out, filters.revision());
+            writeFilters(out, filters.filters());
+          });
+    }
+
+    @Override
+    public ProjectFilters deserialize(byte[] in) {
+      return read(in, data -> new ProjectFilters(readObjectId(data), readFilters(data)));
+    }
+  }
+
+  private interface Writer {
+    void write(DataOutputStream out) throws IOException;
+  }
+
+  private interface Reader<T> {
+    T read(DataInputStream in) throws IOException;
+  }
+
+  private static byte[] write(Writer writer) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      writer.write(out);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to serialize filters", e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static <T> T read(byte[] in, Reader<T> reader) {
+    try (DataInputStream data = new DataInputStream(new ByteArrayInputStream(in))) {
+      return reader.read(data);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failed to deserialize filters", e);
+    }
+  }
+
+  private static void writeFilters(DataOutputStream out, ImmutableList<CompiledFilter> filters)
+      throws IOException {
+    out.writeInt(filters.size());
+    for (CompiledFilter f : filters) {
+      writeString(out, f.filter());
+      writeStrings(out, f.reviewers());
+      writeStrings(out, f.ccs());
+      out.writeInt(f.maxAccounts());
+    }
+  }
+
+  private static ImmutableList<CompiledFilter> readFilters(DataInputStream in)
+      throws IOException {
+    int n = in.readInt();
+    ImmutableList.Builder<CompiledFilter> filters = ImmutableList.builderWithExpectedSize(n);
+    for (int i = 0; i < n; i++) {
+      filters.add(
+          new CompiledFilter(readString(in), readStrings(in), readStrings(in), in.readInt()));
+    }
+    return filters.build();
+  }
+
+  private static void writeStrings(DataOutputStream out, Collection<String> values)
+      throws IOException {
+    out.writeInt(values.size());
+    for (String v : values) {
+      writeString(out, v);
+    }
+  }
+
+  private static ImmutableSet<String> readStrings(DataInputStream in) throws IOException {
+    int n = in.readInt();
+    ImmutableSet.Builder<String> values = ImmutableSet.builderWithExpectedSize(n);
+    for (int i = 0; i < n; i++) {
+      values.add(readString(in));
+    }
+    return values.build();
+  }
+
+  /* Unlike writeUTF, not limited to 64 KiB. */
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    byte[] bytes = s.getBytes(UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  private static void writeObjectId(DataOutputStream out, ObjectId id) throws IOException {
+    byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+    id.copyRawTo(raw, 0);
+    out.write(raw);
+  }
+
+  private static ObjectId readObjectId(DataInputStream in) throws IOException {
+    byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+    in.readFully(raw);
+    return ObjectId.fromRaw(raw);
+  }
+
+  private FilterSerializers() {}
+}
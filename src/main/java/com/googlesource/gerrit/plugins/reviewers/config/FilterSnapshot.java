@@ -0,0 +1,194 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers.config;
+
+import static com.googlesource.gerrit.plugins.reviewers.config.ForProject.SECTION_FILTER;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Ints;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.entities.Change;
+import com.google.gerrit.entities.Project;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.jgit.lib.Config;
+
+/**
+ * Immutable view of all filters, local and inherited, that apply to a project at a given state of
+ * the project hierarchy.
+ *
+ * <p>Filters are indexed by the destination refs they are constrained to (see {@link
+ * FilterConstraints}), so that only the candidate filters for the ref of a change need to be
+ * matched against it. Filters constrained to other projects are dropped from the index. The
+ * {@code file:} and {@code path:} expressions of all filters are combined into a single {@link
+ * FilePatternMatcher}. The index holds the positions of the filters in configuration order, so
+ * that the candidates for a change are returned in configuration order too.
+ */
+public class FilterSnapshot {
+  private static final int[] NONE = new int[0];
+
+  static final FilterSnapshot EMPTY =
+      new FilterSnapshot(
+          null,
+          ImmutableList.of(),
+          NONE,
+          ImmutableMap.of(),
+          NONE,
+          FilePatternMatcher.EMPTY);
+
+  @Nullable private final Project.NameKey project;
+  private final ImmutableList<CompiledFilter> filters;
+  /* Positions in filters, in ascending order. */
+  private final int[] anyRef;
+  private final ImmutableMap<String, int[]> byRef;
+  private final int[] byRefPrefix;
+  private final FilePatternMatcher files;
+
+  private FilterSnapshot(
+      @Nullable Project.NameKey project,
+      ImmutableList<CompiledFilter> filters,
+      int[] anyRef,
+      ImmutableMap<String, int[]> byRef,
+      int[] byRefPrefix,
+      FilePatternMatcher files) {
+    this.project = project;
+    this.filters = filters;
+    this.anyRef = anyRef;
+    this.byRef = byRef;
+    this.byRefPrefix = byRefPrefix;
+    this.files = files;
+  }
+
+  static FilterSnapshot create(Project.NameKey project, Config cfg) {
+    ImmutableList<CompiledFilter> filters = compile(cfg);
+    return filters.isEmpty() ? EMPTY : create(project, filters);
+  }
+
+  /** Compile the filter sections of a config, in configuration order. */
+  static ImmutableList<CompiledFilter> compile(Config cfg) {
+    Set<String> sections = cfg.getSubsections(SECTION_FILTER);
+    ImmutableList.Builder<CompiledFilter> b =
+        ImmutableList.builderWithExpectedSize(sections.size());
+    for (String f : sections) {
+      b.add(CompiledFilter.create(cfg, f));
+    }
+    return b.build();
+  }
+
+  static FilterSnapshot create(Project.NameKey project, ImmutableList<CompiledFilter> filters) {
+    List<Integer> anyRef = new ArrayList<>();
+    Map<String, List<Integer>> byRef = new HashMap<>();
+    List<Integer> byRefPrefix = new ArrayList<>();
+    ImmutableSet.Builder<String> filePatterns = ImmutableSet.builder();
+    for (int i = 0; i < filters.size(); i++) {
+      FilterConstraints c = filters.get(i).constraints();
+      if (!c.acceptsProject(project)) {
+        continue;
+      }
+      filePatterns.addAll(c.filePatterns());
+      if (!c.refs().isEmpty()) {
+        for (String ref : c.refs()) {
+          byRef.computeIfAbsent(ref, r -> new ArrayList<>()).add(i);
+        }
+      } else if (c.refPrefix() != null) {
+        byRefPrefix.add(i);
+      } else {
+        anyRef.add(i);
+      }
+    }
+    ImmutableMap.Builder<String, int[]> refs = ImmutableMap.builderWithExpectedSize(byRef.size());
+    byRef.forEach((ref, positions) -> refs.put(ref, Ints.toArray(positions)));
+    return new FilterSnapshot(
+        project,
+        filters,
+        Ints.toArray(anyRef),
+        refs.build(),
+        Ints.toArray(byRefPrefix),
+        FilePatternMatcher.create(filePatterns.build()));
+  }
+
+  /** The project the snapshot was built for, or null if the snapshot is empty. */
+  @Nullable
+  Project.NameKey project() {
+    return project;
+  }
+
+  /** All filters of the snapshot, in configuration order. */
+  public ImmutableList<CompiledFilter> filters() {
+    return filters;
+  }
+
+  /**
+   * Get the filters that may match a change, based on its destination ref and status. Filters that
+   * are not returned are known not to match the change.
+   *
+   * @param ref the full name of the destination ref of the change
+   * @param status the status of the change
+   * @return the candidate filters, in configuration order
+   */
+  public ImmutableList<CompiledFilter> candidates(String ref, Change.Status status) {
+    int[] exact = byRef.getOrDefault(ref, NONE);
+    int[] found = new int[anyRef.length + exact.length + byRefPrefix.length];
+    int n = addCandidates(found, 0, anyRef, null, status);
+    n = addCandidates(found, n, exact, null, status);
+    n = addCandidates(found, n, byRefPrefix, ref, status);
+    /* A filter is in only one of the indexes, so the positions are distinct. */
+    Arrays.sort(found, 0, n);
+    ImmutableList.Builder<CompiledFilter> b = ImmutableList.builderWithExpectedSize(n);
+    for (int i = 0; i < n; i++) {
+      b.add(filters.get(found[i]));
+    }
+    return b.build();
+  }
+
+  /**
+   * Match the {@code file:} and {@code path:} regular expressions of all filters against the files
+   * of a change in a single pass.
+   *
+   * @param paths the paths of the files modified by the change
+   * @return the result, to be checked for each candidate filter that {@link
+   *     CompiledFilter#hasFilePatterns() has file patterns}
+   */
+  public FilePatternMatcher.Result matchFiles(Iterable<String> paths) {
+    return files.match(paths);
+  }
+
+  /* Adds the positions of the filters that accept the status, and the ref unless it is null, and
+   * returns the number of positions found. */
+  private int addCandidates(
+      int[] found, int n, int[] positions, @Nullable String ref, Change.Status status) {
+    for (int i : positions) {
+      FilterConstraints c = filters.get(i).constraints();
+      if ((ref == null || c.acceptsRef(ref)) && c.acceptsStatus(status)) {
+        found[n++] = i;
+      }
+    }
+    return n;
+  }
+
+  public boolean isEmpty() {
+    return filters.isEmpty();
+  }
+
+  public int size() {
+    return filters.size();
+  }
+}
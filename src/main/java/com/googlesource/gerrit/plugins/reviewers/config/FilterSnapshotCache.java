@@ -0,0 +1,262 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers.config;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.metrics.Timer0;
+import com.google.gerrit.server.cache.CacheModule;
+import com.google.gerrit.server.project.ProjectCache;
+import com.google.gerrit.server.project.ProjectState;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.googlesource.gerrit.plugins.reviewers.ReviewersMetrics;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Cache of {@link FilterSnapshot}s per project.
+ *
+ * <p>Entries are keyed by the project and the {@code refs/meta/config} revisions of the project
+ * and all of its parents, so that a snapshot is never served for a hierarchy state it was not
+ * built from.
+ *
+ * <p>The snapshot of a project is built by inheriting the cached snapshot of its parent, and the
+ * filters of the own configuration of every project are cached separately. When the configuration
+ * of a project is updated, only its own filters are compiled again; the snapshots of the project
+ * and of its children are built again onto the snapshots of their parents as they are requested.
+ * Snapshots of earlier states of the hierarchy are never requested again, and age out of the
+ * cache.
+ *
+ * <p>Both caches are persisted, so that after a restart only the filters of the projects whose
+ * configuration changed meanwhile need to be read from git again.
+ */
+@Singleton
+public class FilterSnapshotCache {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  static final String CACHE_NAME = "filters";
+  static final String PROJECT_CACHE_NAME = "project_filters";
+
+  static Module module() {
+    return new CacheModule() {
+      @Override
+      protected void configure() {
+        persist(CACHE_NAME, Key.class, FilterSnapshot.class)
+            .version(1)
+            .keySerializer(new FilterSerializers.KeySerializer())
+            .valueSerializer(new FilterSerializers.SnapshotSerializer())
+            .maximumWeight(100_000)
+            .weigher(FilterWeigher.class);
+        persist(PROJECT_CACHE_NAME, Project.NameKey.class, ProjectFilters.class)
+            .version(1)
+            .keySerializer(new FilterSerializers.ProjectKeySerializer())
+            .valueSerializer(new FilterSerializers.ProjectFiltersSerializer())
+            .maximumWeight(100_000)
+            .weigher(ProjectFiltersWeigher.class);
+      }
+    };
+  }
+
+  private final Cache<Key, FilterSnapshot> cache;
+  private final Cache<Project.NameKey, ProjectFilters> projectFilters;
+  private final ProjectCache projectCache;
+  private final FiltersFactory filters;
+  private final boolean mergeFilters;
+  private final ReviewersMetrics metrics;
+
+  @Inject
+  FilterSnapshotCache(
+      @Named(CACHE_NAME) Cache<Key, FilterSnapshot> cache,
+      @Named(PROJECT_CACHE_NAME) Cache<Project.NameKey, ProjectFilters> projectFilters,
+      ProjectCache projectCache,
+      FiltersFactory filters,
+      GlobalConfig config,
+      ReviewersMetrics metrics) {
+    this.cache = cache;
+    this.projectFilters = projectFilters;
+    this.projectCache = projectCache;
+    this.filters = filters;
+    this.mergeFilters = config.mergeFilters();
+    this.metrics = metrics;
+  }
+
+  /**
+   * Get the filters, local and inherited, of a project.
+   *
+   * @param project the project name
+   * @return the snapshot for the current state of the project hierarchy; an empty snapshot if the
+   *     project doesn't exist or its configuration couldn't be loaded.
+   */
+  public FilterSnapshot get(Project.NameKey project) {
+    Optional<ProjectState> state = projectCache.get(project);
+    if (!state.isPresent()) {
+      return FilterSnapshot.EMPTY;
+    }
+    List<ProjectState> tree = state.get().treeInOrder();
+    ImmutableMap.Builder<Project.NameKey, ObjectId> b = ImmutableMap.builder();
+    for (ProjectState p : tree) {
+      b.put(p.getNameKey(), revision(p));
+    }
+    ImmutableMap<Project.NameKey, ObjectId> revisions = b.build();
+    FilterSnapshot snapshot = cache.getIfPresent(new Key(project, revisions, mergeFilters));
+    if (snapshot != null) {
+      return snapshot;
+    }
+
+    /* Walks down from the root, so that a snapshot is only built once the snapshot of its parent
+     * is, as the cache can't load an entry while loading another. */
+    ImmutableList<Map.Entry<Project.NameKey, ObjectId>> path = revisions.entrySet().asList();
+    try {
+      for (int i = 0; i < tree.size(); i++) {
+        ProjectState p = tree.get(i);
+        FilterSnapshot parent = snapshot;
+        snapshot =
+            cache.get(
+                new Key(
+                    p.getNameKey(), ImmutableMap.copyOf(path.subList(0, i + 1)), mergeFilters),
+                () -> load(p, parent));
+      }
+      return snapshot;
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      logger.atSevere().withCause(e).log("Unable to load filters for project %s", project.get());
+      return FilterSnapshot.EMPTY;
+    }
+  }
+
+  /** Evict the filters of the own configuration of a project. */
+  void evict(Project.NameKey project) {
+    projectFilters.invalidate(project);
+  }
+
+  private FilterSnapshot load(ProjectState project, @Nullable FilterSnapshot parent) {
+    try (Timer0.Context ctx = metrics.startSnapshotLoad()) {
+      ImmutableList<CompiledFilter> own = own(project);
+      ImmutableList<CompiledFilter> inherited =
+          parent != null ? filters.inherit(own, parent.filters()) : own;
+      return inherited.isEmpty()
+          ? FilterSnapshot.EMPTY
+          : FilterSnapshot.create(project.getNameKey(), inherited);
+    }
+  }
+
+  private ImmutableList<CompiledFilter> own(ProjectState project) {
+    ObjectId revision = revision(project);
+    ProjectFilters own = projectFilters.getIfPresent(project.getNameKey());
+    if (own == null || !own.revision.equals(revision)) {
+      own = new ProjectFilters(revision, filters.own(project));
+      projectFilters.put(project.getNameKey(), own);
+    }
+    return own.filters;
+  }
+
+  private static ObjectId revision(ProjectState project) {
+    return project.getConfig().getRevision().orElse(ObjectId.zeroId());
+  }
+
+  /* Persisted snapshots must not be used if mergeFilters was changed meanwhile. */
+  static class Key {
+    private final Project.NameKey project;
+    private final ImmutableMap<Project.NameKey, ObjectId> revisions;
+    private final boolean mergeFilters;
+
+    Key(
+        Project.NameKey project,
+        ImmutableMap<Project.NameKey, ObjectId> revisions,
+        boolean mergeFilters) {
+      this.project = project;
+      this.revisions = revisions;
+      this.mergeFilters = mergeFilters;
+    }
+
+    Project.NameKey project() {
+      return project;
+    }
+
+    ImmutableMap<Project.NameKey, ObjectId> revisions() {
+      return revisions;
+    }
+
+    boolean mergeFilters() {
+      return mergeFilters;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o instanceof Key) {
+        Key other = (Key) o;
+        return project.equals(other.project)
+            && revisions.equals(other.revisions)
+            && mergeFilters == other.mergeFilters;
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(project, revisions, mergeFilters);
+    }
+
+    @Override
+    public String toString() {
+      return project.get() + revisions;
+    }
+  }
+
+  /** The filters of the own configuration of a project, at a {@code refs/meta/config} revision. */
+  static class ProjectFilters {
+    private final ObjectId revision;
+    private final ImmutableList<CompiledFilter> filters;
+
+    ProjectFilters(ObjectId revision, ImmutableList<CompiledFilter> filters) {
+      this.revision = revision;
+      this.filters = filters;
+    }
+
+    ObjectId revision() {
+      return revision;
+    }
+
+    ImmutableList<CompiledFilter> filters() {
+      return filters;
+    }
+  }
+
+  static class FilterWeigher implements Weigher<Key, FilterSnapshot> {
+    @Override
+    public int weigh(Key key, FilterSnapshot snapshot) {
+      return 1 + snapshot.size();
+    }
+  }
+
+  static class ProjectFiltersWeigher implements Weigher<Project.NameKey, ProjectFilters> {
+    @Override
+    public int weigh(Project.NameKey project, ProjectFilters filters) {
+      return 1 + filters.filters.size();
+    }
+  }
+}
@@ -0,0 +1,58 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers.config;
+
+import com.google.common.cache.RemovalNotification;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.entities.RefNames;
+import com.google.gerrit.extensions.events.GitReferenceUpdatedListener;
+import com.google.gerrit.server.cache.CacheRemovalListener;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Evicts the filters of the own configuration of a project when it changes or is evicted from the
+ * project cache. The {@link FilterSnapshot}s of the project and its children don't need to be
+ * evicted, as they are keyed by the configuration revisions they were built from.
+ */
+@Singleton
+class FilterSnapshotInvalidator
+    implements GitReferenceUpdatedListener, CacheRemovalListener<Object, Object> {
+  private static final String PROJECT_CACHE = "projects";
+
+  private final FilterSnapshotCache snapshots;
+
+  @Inject
+  FilterSnapshotInvalidator(FilterSnapshotCache snapshots) {
+    this.snapshots = snapshots;
+  }
+
+  @Override
+  public void onGitReferenceUpdated(GitReferenceUpdatedListener.Event event) {
+    if (RefNames.REFS_CONFIG.equals(event.getRefName())) {
+      snapshots.evict(Project.nameKey(event.getProjectName()));
+    }
+  }
+
+  @Override
+  public void onRemoval(
+      String pluginName, String cacheName, RemovalNotification<Object, Object> notification) {
+    if ("gerrit".equals(pluginName)
+        && PROJECT_CACHE.equals(cacheName)
+        && notification.getKey() instanceof Project.NameKey) {
+      snapshots.evict((Project.NameKey) notification.getKey());
+    }
+  }
+}
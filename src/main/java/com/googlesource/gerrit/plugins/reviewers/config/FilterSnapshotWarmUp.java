@@ -0,0 +1,194 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers.config;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.gerrit.server.project.ProjectCache;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.reviewers.ReviewersMetrics;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Loads the {@link FilterSnapshot}s of the projects into the {@link FilterSnapshotCache} in the
+ * background when the plugin starts, so that the first changes of every project don't wait for
+ * their filters to be loaded.
+ *
+ * <p>The projects are warmed up by {@code warmUpThreads} tasks of the {@code Reviewers-WarmUp}
+ * queue, which report their progress in {@code show-queue}.
+ */
+@Singleton
+class FilterSnapshotWarmUp implements LifecycleListener {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private final WorkQueue workQueue;
+  private final ProjectCache projectCache;
+  private final FilterSnapshotCache snapshots;
+  private final GlobalConfig config;
+  private final ReviewersMetrics metrics;
+  private final AtomicInteger done = new AtomicInteger();
+  private final AtomicInteger running = new AtomicInteger();
+  @Nullable private ScheduledExecutorService executor;
+  @Nullable private Iterator<Project.NameKey> pending;
+  private volatile int total = -1;
+  private volatile boolean stopped;
+  private long started;
+
+  @Inject
+  FilterSnapshotWarmUp(
+      WorkQueue workQueue,
+      ProjectCache projectCache,
+      FilterSnapshotCache snapshots,
+      GlobalConfig config,
+      ReviewersMetrics metrics) {
+    this.workQueue = workQueue;
+    this.projectCache = projectCache;
+    this.snapshots = snapshots;
+    this.config = config;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void start() {
+    if (!config.warmUp()) {
+      return;
+    }
+    started = System.nanoTime();
+    executor = workQueue.createQueue(config.warmUpThreads(), "Reviewers-WarmUp");
+    running.set(1);
+    /* Listing the projects may take a while too, so it is done by the first task. */
+    executor.execute(new Task(true));
+  }
+
+  @Override
+  public void stop() {
+    stopped = true;
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  private void list() {
+    Predicate<String> matches = matcher(config.warmUpProjects());
+    ImmutableList<Project.NameKey> projects =
+        projectCache.all().stream().filter(p -> matches.test(p.get())).collect(toImmutableList());
+    synchronized (this) {
+      pending = projects.iterator();
+    }
+    total = projects.size();
+    logger.atInfo().log("Warming up the reviewers filters of %d projects", total);
+    for (int i = 1; i < config.warmUpThreads() && !stopped; i++) {
+      running.incrementAndGet();
+      executor.execute(new Task(false));
+    }
+  }
+
+  @Nullable
+  private synchronized Project.NameKey next() {
+    return pending.hasNext() ? pending.next() : null;
+  }
+
+  private void warmUp() {
+    for (Project.NameKey p = next(); p != null && !stopped; p = next()) {
+      try {
+        @SuppressWarnings("unused")
+        FilterSnapshot ignored = snapshots.get(p);
+      } catch (RuntimeException e) {
+        logger.atWarning().withCause(e).log("Failed to warm up the filters of %s", p.get());
+      }
+      done.incrementAndGet();
+    }
+  }
+
+  private void finish() {
+    if (stopped) {
+      return;
+    }
+    executor.shutdown();
+    Duration duration = Duration.ofNanos(System.nanoTime() - started);
+    metrics.recordWarmUp(duration);
+    logger.atInfo().log(
+        "Warmed up the reviewers filters of %d projects in %d ms", done.get(), duration.toMillis());
+  }
+
+  /* Project patterns as in the rest of Gerrit: a regular expression if starting with ^, a prefix
+   * if ending with *, or else a project name. */
+  private static Predicate<String> matcher(List<String> patterns) {
+    if (patterns.isEmpty()) {
+      return p -> true;
+    }
+    Predicate<String> matcher = p -> false;
+    for (String pattern : patterns) {
+      if (pattern.startsWith("^")) {
+        try {
+          Pattern regex = Pattern.compile(pattern);
+          matcher = matcher.or(p -> regex.matcher(p).matches());
+        } catch (PatternSyntaxException e) {
+          logger.atWarning().log("Ignoring invalid warmUpProject %s: %s", pattern, e.getMessage());
+        }
+      } else if (pattern.endsWith("*")) {
+        String prefix = pattern.substring(0, pattern.length() - 1);
+        matcher = matcher.or(p -> p.startsWith(prefix));
+      } else {
+        matcher = matcher.or(pattern::equals);
+      }
+    }
+    return matcher;
+  }
+
+  private class Task implements Runnable {
+    private final boolean first;
+
+    Task(boolean first) {
+      this.first = first;
+    }
+
+    @Override
+    public void run() {
+      try {
+        if (first) {
+          list();
+        }
+        warmUp();
+      } finally {
+        if (running.decrementAndGet() == 0) {
+          finish();
+        }
+      }
+    }
+
+    @Override
+    public String toString() {
+      if (total < 0) {
+        return "Warm up reviewers filters: listing projects";
+      }
+      return String.format("Warm up reviewers filters: %d/%d projects", done.get(), total);
+    }
+  }
+}
@@ -14,15 +14,19 @@
 
 package com.googlesource.gerrit.plugins.reviewers.config;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.flogger.FluentLogger;
 import com.google.gerrit.entities.Project;
 import com.google.gerrit.extensions.annotations.PluginName;
 import com.google.gerrit.server.config.PluginConfigFactory;
 import com.google.gerrit.server.project.NoSuchProjectException;
+import com.google.gerrit.server.project.ProjectState;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.googlesource.gerrit.plugins.reviewers.ReviewerFilter;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.eclipse.jgit.lib.Config;
 
 @Singleton
@@ -46,18 +50,58 @@ public class FiltersFactory {
     this.pluginName = pluginName;
   }
 
+  /**
+   * Get the filters, local and inherited, of a project. All filter queries are validated, and
+   * errors are reported through {@link ReviewerFilter#getFilterError()}.
+   */
   public List<ReviewerFilter> withInheritance(Project.NameKey projectName) {
-    Config cfg;
+    return filterCollectionFactory.create(inheritedConfig(projectName)).getAll();
+  }
+
+  /**
+   * Build the immutable, non-validated runtime representation of the filters of the own
+   * configuration of a project, without the inherited filters.
+   */
+  ImmutableList<CompiledFilter> own(ProjectState project) {
+    return FilterSnapshot.compile(project.getConfig(pluginName + ".config").get());
+  }
+
+  /**
+   * Inherit the filters of the parent project, with the same semantics as the inherited plugin
+   * config of a project: the keys of filters of the same name are merged, or, if {@code
+   * mergeFilters} is disabled, the keys the project sets replace those of the parent. The filters
+   * of the project come first, followed by the filters only the parent has.
+   *
+   * @param own the filters of the project's own configuration
+   * @param parent the filters, local and inherited, of the parent project
+   * @return the filters, local and inherited, of the project
+   */
+  ImmutableList<CompiledFilter> inherit(
+      ImmutableList<CompiledFilter> own, ImmutableList<CompiledFilter> parent) {
+    if (parent.isEmpty()) {
+      return own;
+    }
+    if (own.isEmpty()) {
+      return parent;
+    }
+    Map<String, CompiledFilter> inherited = new LinkedHashMap<>();
+    own.forEach(f -> inherited.put(f.filter(), f));
+    boolean merge = globalConfig.mergeFilters();
+    for (CompiledFilter f : parent) {
+      inherited.merge(f.filter(), f, (child, p) -> child.inherit(p, merge));
+    }
+    return ImmutableList.copyOf(inherited.values());
+  }
+
+  private Config inheritedConfig(Project.NameKey projectName) {
     try {
       if (globalConfig.mergeFilters()) {
-        cfg = configFactory.getProjectPluginConfigWithMergedInheritance(projectName, pluginName);
-      } else {
-        cfg = configFactory.getProjectPluginConfigWithInheritance(projectName, pluginName);
+        return configFactory.getProjectPluginConfigWithMergedInheritance(projectName, pluginName);
       }
+      return configFactory.getProjectPluginConfigWithInheritance(projectName, pluginName);
     } catch (NoSuchProjectException e) {
       logger.atSevere().log("Unable to get config for project %s", projectName.get());
-      cfg = new Config();
+      return new Config();
     }
-    return filterCollectionFactory.create(cfg).getAll();
   }
 }
@@ -34,6 +34,7 @@ public class ForProject extends VersionedMetaData implements ValidationError.Sin
   @VisibleForTesting public static final String SECTION_FILTER = "filter";
   @VisibleForTesting public static final String KEY_CC = "cc";
   @VisibleForTesting public static final String KEY_REVIEWER = "reviewer";
+  @VisibleForTesting public static final String KEY_MAX_ACCOUNTS = "maxAccounts";
 
   public interface Factory {
     public ForProject create();
@@ -14,32 +14,139 @@
 
 package com.googlesource.gerrit.plugins.reviewers.config;
 
+import com.google.common.collect.ImmutableList;
 import com.google.gerrit.extensions.annotations.PluginName;
+import com.google.gerrit.server.config.ConfigUtil;
 import com.google.gerrit.server.config.PluginConfigFactory;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.reviewers.Module.ThreadPool;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 import org.eclipse.jgit.lib.Config;
 
 /** Global and project local configurations. */
 @Singleton
 public class GlobalConfig {
+  /** What to do with the accounts of a filter or change that exceed the limit. */
+  public enum OversizedPolicy {
+    /** Add none of the accounts. */
+    REJECT,
+    /** Add a sample of the accounts, which is the same for every attempt on the change. */
+    SAMPLE
+  }
+
   private static final String KEY_ENABLE_REST = "enableREST";
   private static final String KEY_SUGGEST_ONLY = "suggestOnly";
+  private static final String KEY_MAX_SUGGESTIONS = "maxSuggestions";
   private static final String KEY_IGNORE_WIP = "ignoreWip";
   private static final String KEY_MERGE_FILTERS = "mergeFilters";
+  private static final String KEY_THREAD_POOL = "threadPool";
+  private static final String KEY_POOL_SIZE = "poolSize";
+  private static final String KEY_QUEUE_CAPACITY = "queueCapacity";
+  private static final String KEY_COALESCE_WINDOW = "coalesceWindow";
+  private static final String KEY_MAX_RETRIES = "maxRetries";
+  private static final String KEY_RETRY_DELAY = "retryDelay";
+  private static final String KEY_MAX_RETRY_DELAY = "maxRetryDelay";
+  private static final String KEY_RESOLVE_THREADS = "resolveThreads";
+  private static final String KEY_RESOLVE_TIMEOUT = "resolveTimeout";
+  private static final String KEY_MAX_ACCOUNTS = "maxAccounts";
+  private static final String KEY_OVERSIZED_POLICY = "oversizedPolicy";
+  private static final String KEY_WARM_UP = "warmUp";
+  private static final String KEY_WARM_UP_PROJECT = "warmUpProject";
+  private static final String KEY_WARM_UP_THREADS = "warmUpThreads";
+
+  private static final int DEFAULT_POOL_SIZE = 2;
+  private static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+  private static final long DEFAULT_COALESCE_WINDOW_MS = 1_000;
+  private static final int DEFAULT_MAX_RETRIES = 8;
+  private static final long DEFAULT_RETRY_DELAY_MS = 1_000;
+  private static final long DEFAULT_MAX_RETRY_DELAY_MS = 300_000;
+  private static final int DEFAULT_RESOLVE_THREADS = 4;
+  private static final long DEFAULT_RESOLVE_TIMEOUT_MS = 10_000;
+  private static final int DEFAULT_MAX_SUGGESTIONS = 10;
+  private static final int DEFAULT_WARM_UP_THREADS = 2;
 
   private final boolean enableREST;
   private final boolean suggestOnly;
+  private final int maxSuggestions;
   private final boolean ignoreWip;
   private final boolean mergeFilters;
+  private final ThreadPool threadPool;
+  private final int poolSize;
+  private final int queueCapacity;
+  private final Duration coalesceWindow;
+  private final int maxRetries;
+  private final Duration retryDelay;
+  private final Duration maxRetryDelay;
+  private final int resolveThreads;
+  private final Duration resolveTimeout;
+  private final int maxAccounts;
+  private final OversizedPolicy oversizedPolicy;
+  private final boolean warmUp;
+  private final ImmutableList<String> warmUpProjects;
+  private final int warmUpThreads;
 
   @Inject
   GlobalConfig(PluginConfigFactory cfgFactory, @PluginName String pluginName) {
     Config cfg = cfgFactory.getGlobalPluginConfig(pluginName);
     this.enableREST = cfg.getBoolean(pluginName, null, KEY_ENABLE_REST, true);
     this.suggestOnly = cfg.getBoolean(pluginName, null, KEY_SUGGEST_ONLY, false);
+    this.maxSuggestions =
+        Math.max(1, cfg.getInt(pluginName, null, KEY_MAX_SUGGESTIONS, DEFAULT_MAX_SUGGESTIONS));
     this.ignoreWip = cfg.getBoolean(pluginName, null, KEY_IGNORE_WIP, true);
     this.mergeFilters = cfg.getBoolean(pluginName, null, KEY_MERGE_FILTERS, true);
+    this.threadPool = cfg.getEnum(pluginName, null, KEY_THREAD_POOL, ThreadPool.WORK_QUEUE);
+    this.poolSize = Math.max(1, cfg.getInt(pluginName, null, KEY_POOL_SIZE, DEFAULT_POOL_SIZE));
+    this.queueCapacity = cfg.getInt(pluginName, null, KEY_QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY);
+    this.coalesceWindow =
+        Duration.ofMillis(
+            ConfigUtil.getTimeUnit(
+                cfg,
+                pluginName,
+                null,
+                KEY_COALESCE_WINDOW,
+                DEFAULT_COALESCE_WINDOW_MS,
+                TimeUnit.MILLISECONDS));
+    this.maxRetries =
+        Math.max(0, cfg.getInt(pluginName, null, KEY_MAX_RETRIES, DEFAULT_MAX_RETRIES));
+    this.retryDelay =
+        Duration.ofMillis(
+            ConfigUtil.getTimeUnit(
+                cfg,
+                pluginName,
+                null,
+                KEY_RETRY_DELAY,
+                DEFAULT_RETRY_DELAY_MS,
+                TimeUnit.MILLISECONDS));
+    this.maxRetryDelay =
+        Duration.ofMillis(
+            ConfigUtil.getTimeUnit(
+                cfg,
+                pluginName,
+                null,
+                KEY_MAX_RETRY_DELAY,
+                DEFAULT_MAX_RETRY_DELAY_MS,
+                TimeUnit.MILLISECONDS));
+    this.resolveThreads =
+        Math.max(1, cfg.getInt(pluginName, null, KEY_RESOLVE_THREADS, DEFAULT_RESOLVE_THREADS));
+    this.resolveTimeout =
+        Duration.ofMillis(
+            ConfigUtil.getTimeUnit(
+                cfg,
+                pluginName,
+                null,
+                KEY_RESOLVE_TIMEOUT,
+                DEFAULT_RESOLVE_TIMEOUT_MS,
+                TimeUnit.MILLISECONDS));
+    this.maxAccounts = cfg.getInt(pluginName, null, KEY_MAX_ACCOUNTS, 0);
+    this.oversizedPolicy =
+        cfg.getEnum(pluginName, null, KEY_OVERSIZED_POLICY, OversizedPolicy.REJECT);
+    this.warmUp = cfg.getBoolean(pluginName, null, KEY_WARM_UP, false);
+    this.warmUpProjects =
+        ImmutableList.copyOf(cfg.getStringList(pluginName, null, KEY_WARM_UP_PROJECT));
+    this.warmUpThreads =
+        Math.max(1, cfg.getInt(pluginName, null, KEY_WARM_UP_THREADS, DEFAULT_WARM_UP_THREADS));
   }
 
   public boolean enableREST() {
@@ -50,6 +157,10 @@ public class GlobalConfig {
     return suggestOnly;
   }
 
+  public int maxSuggestions() {
+    return maxSuggestions;
+  }
+
   public boolean ignoreWip() {
     return ignoreWip;
   }
@@ -57,4 +168,71 @@ public class GlobalConfig {
   public boolean mergeFilters() {
     return mergeFilters;
   }
+
+  public ThreadPool threadPool() {
+    return threadPool;
+  }
+
+  /** Number of threads of the dedicated reviewers work queue. */
+  public int poolSize() {
+    return poolSize;
+  }
+
+  /** Maximum number of tasks pending in the dedicated work queue; unbounded if not positive. */
+  public int queueCapacity() {
+    return queueCapacity;
+  }
+
+  /** Time to wait for further events of a change before adding reviewers to it. */
+  public Duration coalesceWindow() {
+    return coalesceWindow;
+  }
+
+  /** Number of times adding reviewers to a change is retried after a failure. */
+  public int maxRetries() {
+    return maxRetries;
+  }
+
+  /** Delay before the first retry, doubled for every further retry. */
+  public Duration retryDelay() {
+    return retryDelay;
+  }
+
+  public Duration maxRetryDelay() {
+    return maxRetryDelay;
+  }
+
+  public int resolveThreads() {
+    return resolveThreads;
+  }
+
+  public Duration resolveTimeout() {
+    return resolveTimeout;
+  }
+
+  /**
+   * Maximum number of accounts added to a change automatically, and by any single filter;
+   * unlimited if not positive.
+   */
+  public int maxAccounts() {
+    return maxAccounts;
+  }
+
+  public OversizedPolicy oversizedPolicy() {
+    return oversizedPolicy;
+  }
+
+  /** Whether the filters of the projects are loaded in the background when the plugin starts. */
+  public boolean warmUp() {
+    return warmUp;
+  }
+
+  /** Patterns of the projects to warm up; all projects if empty. */
+  public ImmutableList<String> warmUpProjects() {
+    return warmUpProjects;
+  }
+
+  public int warmUpThreads() {
+    return warmUpThreads;
+  }
 }
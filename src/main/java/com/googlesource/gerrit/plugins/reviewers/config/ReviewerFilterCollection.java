@@ -27,16 +27,24 @@ import com.google.gerrit.server.git.ValidationError;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import com.googlesource.gerrit.plugins.reviewers.ReviewerFilter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.eclipse.jgit.lib.Config;
 
-/** Representation of the collection of {@link ReviewerFilter}s in a {@link Config}. */
+/**
+ * Editable representation of the collection of {@link ReviewerFilter}s in a {@link Config}.
+ *
+ * <p>Used to edit and validate reviewers.config; the runtime representation used to match changes
+ * is the {@link FilterSnapshot}.
+ */
 class ReviewerFilterCollection {
 
   private final ReviewersQueryValidator queryValidator;
   private final Config cfg;
   private final Optional<ValidationError.Sink> validationErrorSink;
+  private final Map<String, Optional<String>> errors = new HashMap<>();
 
   interface Factory {
     ReviewerFilterCollection create(Config cfg);
@@ -72,7 +80,7 @@ class ReviewerFilterCollection {
    * to the ValidationError.Sink. */
   private void check() {
     for (String f : cfg.getSubsections(SECTION_FILTER)) {
-      checkForErrors(f);
+      errors.put(f, checkForErrors(f));
     }
   }
 
@@ -82,7 +90,11 @@ class ReviewerFilterCollection {
 
   private ReviewerFilterSection newReviewerFilter(String filter) {
     ReviewerFilterSection section = new ReviewerFilterSection(filter);
-    checkForErrors(filter).ifPresent(err -> section.filterError(err));
+    Optional<String> error = errors.get(filter);
+    if (error == null) {
+      error = checkForErrors(filter);
+    }
+    error.ifPresent(err -> section.filterError(err));
     return section;
   }
 
@@ -0,0 +1,162 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gerrit.entities.Account;
+import com.google.gerrit.entities.Change;
+import com.google.gerrit.entities.Project;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReviewerJournalTest {
+  private static final Project.NameKey PROJECT = Project.nameKey("foo/bar");
+  private static final Account.Id UPLOADER = Account.id(1000000);
+  private static final Account.Id OTHER_UPLOADER = Account.id(1000001);
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private Path dataDir;
+  private ReviewerJournal journal;
+
+  @Before
+  public void setUp() throws Exception {
+    dataDir = tmp.getRoot().toPath();
+    journal = new ReviewerJournal(dataDir);
+    assertThat(journal.open()).isEmpty();
+  }
+
+  @After
+  public void tearDown() {
+    journal.close();
+  }
+
+  @Test
+  public void pendingChangesAreReplayedAfterRestart() throws Exception {
+    journal.pending(PROJECT, Change.id(1), UPLOADER);
+    journal.pending(PROJECT, Change.id(2), null);
+    journal.pending(PROJECT, Change.id(3), UPLOADER);
+    journal.done(PROJECT, Change.id(1), journal.sequence());
+
+    ImmutableList<ReviewerJournal.Entry> entries = restart();
+    assertThat(entries).hasSize(2);
+    assertThat(entries.get(0).project()).isEqualTo(PROJECT);
+    assertThat(entries.get(0).change()).isEqualTo(Change.id(2));
+    assertThat(entries.get(0).uploader()).isNull();
+    assertThat(entries.get(1).change()).isEqualTo(Change.id(3));
+    assertThat(entries.get(1).uploader()).isEqualTo(UPLOADER);
+  }
+
+  @Test
+  public void pendingChangesAreWrittenOnFlush() throws Exception {
+    journal.pending(PROJECT, Change.id(1), UPLOADER);
+    journal.pending(PROJECT, Change.id(2), UPLOADER);
+    journal.flush();
+
+    /* Without closing the journal, as when Gerrit crashes. */
+    assertThat(lines()).hasSize(2);
+  }
+
+  @Test
+  public void laterEventSupersedesProcessing() throws Exception {
+    journal.pending(PROJECT, Change.id(1), UPLOADER);
+    long started = journal.sequence();
+    journal.pending(PROJECT, Change.id(1), OTHER_UPLOADER);
+    journal.done(PROJECT, Change.id(1), started);
+
+    ImmutableList<ReviewerJournal.Entry> entries = restart();
+    assertThat(entries).hasSize(1);
+    assertThat(entries.get(0).uploader()).isEqualTo(OTHER_UPLOADER);
+
+    journal.done(PROJECT, Change.id(1), journal.sequence());
+    assertThat(restart()).isEmpty();
+  }
+
+  @Test
+  public void journalIsCompactedOnOpen() throws Exception {
+    for (int i = 1; i <= 10; i++) {
+      journal.pending(PROJECT, Change.id(i), UPLOADER);
+    }
+    for (int i = 1; i <= 8; i++) {
+      journal.done(PROJECT, Change.id(i), journal.sequence());
+    }
+
+    assertThat(restart()).hasSize(2);
+    assertThat(lines()).hasSize(2);
+  }
+
+  @Test
+  public void journalIsCompactedWhenGrown() throws Exception {
+    int changes = 600;
+    for (int i = 1; i <= changes; i++) {
+      journal.pending(PROJECT, Change.id(i), UPLOADER);
+      journal.done(PROJECT, Change.id(i), journal.sequence());
+    }
+    journal.flush();
+
+    assertThat(lines().size()).isLessThan(changes);
+  }
+
+  @Test
+  public void truncatedLastLineIsIgnored() throws Exception {
+    journal.close();
+    Files.write(
+        dataDir.resolve(ReviewerJournal.FILE_NAME),
+        "+ foo 1 1000000\n+ foo 2 100".getBytes(UTF_8));
+
+    ImmutableList<ReviewerJournal.Entry> entries = journal.open();
+    assertThat(entries).hasSize(1);
+    assertThat(entries.get(0).change()).isEqualTo(Change.id(1));
+    assertThat(entries.get(0).uploader()).isEqualTo(UPLOADER);
+    assertThat(lines()).hasSize(1);
+  }
+
+  @Test
+  public void deferredChangesAreTakenOnce() throws Exception {
+    journal.pending(PROJECT, Change.id(1), UPLOADER);
+    journal.pending(PROJECT, Change.id(2), UPLOADER);
+    journal.defer(PROJECT, Change.id(1));
+    journal.defer(PROJECT, Change.id(2));
+
+    ImmutableList<ReviewerJournal.Entry> taken = journal.takeDeferred(1);
+    assertThat(taken).hasSize(1);
+    assertThat(taken.get(0).change()).isEqualTo(Change.id(1));
+    assertThat(journal.hasDeferred()).isTrue();
+
+    /* A further event of the change queues it anew. */
+    journal.pending(PROJECT, Change.id(2), UPLOADER);
+    assertThat(journal.hasDeferred()).isFalse();
+    assertThat(restart()).hasSize(2);
+  }
+
+  private ImmutableList<ReviewerJournal.Entry> restart() throws Exception {
+    journal.close();
+    journal = new ReviewerJournal(dataDir);
+    return journal.open();
+  }
+
+  private ImmutableList<String> lines() throws Exception {
+    return ImmutableList.copyOf(
+        Files.readAllLines(dataDir.resolve(ReviewerJournal.FILE_NAME), UTF_8));
+  }
+}
@@ -0,0 +1,232 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static com.google.common.truth.Truth.assert_;
+import static com.google.gerrit.extensions.client.ReviewerState.REVIEWER;
+import static java.util.stream.Collectors.toSet;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.acceptance.NoHttpd;
+import com.google.gerrit.acceptance.PushOneCommit;
+import com.google.gerrit.acceptance.TestAccount;
+import com.google.gerrit.acceptance.TestPlugin;
+import com.google.gerrit.acceptance.UseLocalDisk;
+import com.google.gerrit.acceptance.config.GerritConfig;
+import com.google.gerrit.acceptance.config.GlobalPluginConfig;
+import com.google.gerrit.entities.Account;
+import com.google.gerrit.entities.Change;
+import com.google.gerrit.exceptions.StorageException;
+import com.google.gerrit.extensions.common.AccountInfo;
+import com.google.gerrit.extensions.restapi.ResourceConflictException;
+import com.google.gerrit.server.IdentifiedUser;
+import com.google.gerrit.server.change.ModifyReviewersEmail;
+import com.google.gerrit.server.change.ReviewerModifier;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.gerrit.server.query.change.ChangeData;
+import com.google.gerrit.server.update.BatchUpdate;
+import com.google.gerrit.server.update.BatchUpdateOp;
+import com.google.gerrit.server.update.PostUpdateContext;
+import com.google.gerrit.server.util.OneOffRequestContext;
+import com.google.gerrit.testing.TestTimeUtil;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.googlesource.gerrit.plugins.reviewers.config.FilterSnapshotCache;
+import com.googlesource.gerrit.plugins.reviewers.config.GlobalConfig;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+
+/** Tests of adding reviewers on the {@link ReviewerWorkQueue.Scheduled} queue. */
+@NoHttpd
+@UseLocalDisk
+@TestPlugin(name = "reviewers", sysModule = "com.googlesource.gerrit.plugins.reviewers.Module")
+public class ReviewerWorkQueueIT extends AbstractReviewersPluginTest {
+  private static final long TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+  private static final long POLL_MS = 10;
+  /* As configured by change.maxUpdates. */
+  private static final int MAX_UPDATES = 10;
+
+  @Inject private WorkQueue workQueue;
+
+  @Test
+  @GlobalPluginConfig(
+      pluginName = "reviewers",
+      name = "reviewers.threadPool",
+      value = "WORK_QUEUE")
+  @GlobalPluginConfig(pluginName = "reviewers", name = "reviewers.coalesceWindow", value = "2s")
+  public void eventsOfChangeAreCoalesced() throws Exception {
+    TestAccount user2 = accountCreator.user2();
+    createFilters(filter("*").reviewer(user2));
+    PushOneCommit.Result r = createChange();
+    Change.Id change = r.getChange().getId();
+    /* Further events of the change within the window, from the owner and from another user. */
+    submit(admin.id(), change);
+    submit(user.id(), change);
+    awaitIdle();
+
+    assertThat(reviewersFor(r.getChangeId())).containsExactly(user2.id());
+    FilterStats stats = plugin.getSysInjector().getInstance(FilterStats.class);
+    FilterSnapshotCache snapshots = plugin.getSysInjector().getInstance(FilterSnapshotCache.class);
+    assertThat(stats.get(project, snapshots.get(project).filters()).get(0).evaluations)
+        .isEqualTo(1);
+  }
+
+  @Test
+  @GlobalPluginConfig(
+      pluginName = "reviewers",
+      name = "reviewers.threadPool",
+      value = "WORK_QUEUE")
+  @GlobalPluginConfig(pluginName = "reviewers", name = "reviewers.coalesceWindow", value = "5s")
+  public void changesOfOwnerAreUpdatedAtOnce() throws Exception {
+    createFilters(filter("*").reviewer(user));
+    /* Every update of a change is at a different time, unless it is made by the same batch. */
+    TestTimeUtil.resetWithClockStep(1, TimeUnit.SECONDS);
+    try {
+      String first = createChange().getChangeId();
+      String second = createChange().getChangeId();
+      awaitIdle();
+
+      assertThat(reviewersFor(first)).containsExactly(user.id());
+      assertThat(reviewersFor(second)).containsExactly(user.id());
+      assertThat(gApi.changes().id(first).get().updated)
+          .isEqualTo(gApi.changes().id(second).get().updated);
+    } finally {
+      TestTimeUtil.useSystemTime();
+    }
+  }
+
+  @Test
+  @GerritConfig(name = "change.maxUpdates", value = "10")
+  @GlobalPluginConfig(
+      pluginName = "reviewers",
+      name = "reviewers.threadPool",
+      value = "WORK_QUEUE")
+  @GlobalPluginConfig(pluginName = "reviewers", name = "reviewers.coalesceWindow", value = "5s")
+  @GlobalPluginConfig(pluginName = "reviewers", name = "reviewers.maxRetries", value = "0")
+  public void failingChangeDoesNotFailBatch() throws Exception {
+    createFilters(filter("*").reviewer(user));
+    String first = createChange().getChangeId();
+    String second = createChange().getChangeId();
+    /* Within the window, so that adding the reviewers of the second change fails the batch. */
+    exhaustUpdates(second);
+    awaitIdle();
+
+    assertThat(reviewersFor(first)).containsExactly(user.id());
+    assertThat(reviewersFor(second)).isEmpty();
+  }
+
+  @Test
+  public void changesUpdatedByFailedBatchAreReloaded() throws Exception {
+    Change.Id first = createChange().getChange().getId();
+    Change.Id second = createChange().getChange().getId();
+    /* After the changes, so that only the task below adds reviewers. */
+    createFilters(filter("*").reviewer(user));
+    /* Fails the first batch once the reviewers of both changes are added. */
+    AtomicBoolean failed = new AtomicBoolean();
+    BatchUpdate.Factory batchUpdateFactory =
+        plugin.getSysInjector().getInstance(BatchUpdate.Factory.class);
+    BatchUpdate.Factory failing =
+        (p, u, when) -> {
+          BatchUpdate bu = batchUpdateFactory.create(p, u, when);
+          if (failed.compareAndSet(false, true)) {
+            bu.addOp(
+                first,
+                new BatchUpdateOp() {
+                  @Override
+                  public void postUpdate(PostUpdateContext ctx) {
+                    throw new StorageException("failing after the update");
+                  }
+                });
+          }
+          return bu;
+        };
+    sender.clear();
+
+    assertThat(addReviewers(failing, first, second).process()).isEmpty();
+    assertThat(failed.get()).isTrue();
+    assertThat(reviewersFor(String.valueOf(first.get()))).containsExactly(user.id());
+    assertThat(reviewersFor(String.valueOf(second.get()))).containsExactly(user.id());
+    /* The one by one updates found the reviewers already added. */
+    assertThat(sender.getMessages()).isEmpty();
+  }
+
+  /* Uses up the updates that change.maxUpdates allows for the change. */
+  private void exhaustUpdates(String changeId) throws Exception {
+    for (int i = 0; i < MAX_UPDATES; i++) {
+      try {
+        gApi.changes().id(changeId).topic("topic-" + i);
+      } catch (ResourceConflictException e) {
+        return;
+      }
+    }
+    assert_().fail("change %s still allows updates", changeId);
+  }
+
+  private void submit(Account.Id uploader, Change.Id change) {
+    AddReviewers.Factory factory = plugin.getSysInjector().getInstance(AddReviewers.Factory.class);
+    plugin
+        .getSysInjector()
+        .getInstance(ReviewerWorkQueue.class)
+        .submit(factory.create(project, uploader, ImmutableSet.of(change)));
+  }
+
+  private AddReviewers addReviewers(BatchUpdate.Factory batchUpdateFactory, Change.Id... changes) {
+    Injector injector = plugin.getSysInjector();
+    return new AddReviewers(
+        injector.getInstance(OneOffRequestContext.class),
+        injector.getInstance(IdentifiedUser.GenericFactory.class),
+        batchUpdateFactory,
+        injector.getInstance(ReviewerModifier.class),
+        injector.getInstance(ModifyReviewersEmail.class),
+        injector.getInstance(ChangeData.Factory.class),
+        injector.getInstance(FilterSnapshotCache.class),
+        injector.getInstance(ReviewersFilterUtil.class),
+        injector.getInstance(ReviewersResolver.class),
+        injector.getInstance(GlobalConfig.class),
+        injector.getInstance(ReviewersMetrics.class),
+        project,
+        null,
+        ImmutableList.copyOf(changes));
+  }
+
+  /* Waits until the queue has run all of its tasks, including the delayed ones. A task being
+   * taken from the queue is not active yet, hence the queue must be seen idle twice in a row. */
+  private void awaitIdle() throws Exception {
+    ScheduledThreadPoolExecutor executor =
+        workQueue.getExecutor(ReviewerWorkQueue.Scheduled.QUEUE_NAME);
+    long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+    int idle = 0;
+    while (idle < 2) {
+      assertWithMessage("queue idle").that(System.currentTimeMillis()).isLessThan(deadline);
+      Thread.sleep(POLL_MS);
+      idle = executor.getQueue().isEmpty() && executor.getActiveCount() == 0 ? idle + 1 : 0;
+    }
+  }
+
+  private Set<Account.Id> reviewersFor(String changeId) throws Exception {
+    Collection<AccountInfo> reviewers = gApi.changes().id(changeId).get().reviewers.get(REVIEWER);
+    if (reviewers == null) {
+      return ImmutableSet.of();
+    }
+    return reviewers.stream().map(a -> Account.id(a._accountId)).collect(toSet());
+  }
+}
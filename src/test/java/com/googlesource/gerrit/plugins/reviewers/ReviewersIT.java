@@ -17,9 +17,11 @@ package com.googlesource.gerrit.plugins.reviewers;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.gerrit.extensions.client.ReviewerState.CC;
 import static com.google.gerrit.extensions.client.ReviewerState.REVIEWER;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.gerrit.acceptance.NoHttpd;
 import com.google.gerrit.acceptance.PushOneCommit;
 import com.google.gerrit.acceptance.TestAccount;
@@ -27,6 +29,7 @@ import com.google.gerrit.acceptance.TestPlugin;
 import com.google.gerrit.acceptance.UseLocalDisk;
 import com.google.gerrit.acceptance.config.GlobalPluginConfig;
 import com.google.gerrit.entities.Account;
+import com.google.gerrit.entities.Address;
 import com.google.gerrit.entities.BranchNameKey;
 import com.google.gerrit.entities.Project;
 import com.google.gerrit.extensions.api.changes.ReviewInput;
@@ -34,7 +37,14 @@ import com.google.gerrit.extensions.api.changes.ReviewerInput;
 import com.google.gerrit.extensions.client.ChangeStatus;
 import com.google.gerrit.extensions.client.ReviewerState;
 import com.google.gerrit.extensions.common.ChangeInfo;
+import com.google.gerrit.testing.TestTimeUtil;
+import com.googlesource.gerrit.plugins.reviewers.FilterStats.FilterStatsInfo;
+import com.googlesource.gerrit.plugins.reviewers.config.CompiledFilter;
+import com.googlesource.gerrit.plugins.reviewers.config.FilterSnapshot;
+import com.googlesource.gerrit.plugins.reviewers.config.FilterSnapshotCache;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
 import org.eclipse.jgit.junit.TestRepository;
 import org.junit.Test;
@@ -95,6 +105,28 @@ public class ReviewersIT extends AbstractReviewersPluginTest {
     assertThat(reviewersFor(changeId)).containsExactlyElementsIn(ImmutableSet.of(user.id()));
   }
 
+  @Test
+  public void addReviewersFromMatchingFileFilters() throws Exception {
+    TestAccount user2 = accountCreator.user2();
+    createFilters(
+        filter("file:^a.*").reviewer(user),
+        filter("file:^b/.*").reviewer(user2),
+        filter("branch:master file:^a.txt$").cc(user2));
+    String changeId = createChange().getChangeId();
+    assertThat(reviewersFor(changeId)).containsExactlyElementsIn(ImmutableSet.of(user.id()));
+    assertThat(ccsFor(changeId)).containsExactlyElementsIn(ImmutableSet.of(user2.id()));
+  }
+
+  @Test
+  public void addReviewersFromMatchingBranchPrefixFilters() throws Exception {
+    TestAccount user2 = accountCreator.user2();
+    createFilters(
+        filter("branch:^release/.*").reviewer(user), filter("branch:^stable-.*").reviewer(user2));
+    createBranch(BranchNameKey.create(project, "release/1.0"));
+    String changeId = createChange("refs/for/release/1.0").getChangeId();
+    assertThat(reviewersFor(changeId)).containsExactlyElementsIn(ImmutableSet.of(user.id()));
+  }
+
   @Test
   public void dontAddReviewersForPrivateChange() throws Exception {
     createFilters(filter("*").reviewer(user));
@@ -135,6 +167,23 @@ public class ReviewersIT extends AbstractReviewersPluginTest {
     assertThat(info.workInProgress).isNull();
   }
 
+  @Test
+  @GlobalPluginConfig(pluginName = "reviewers", name = "reviewers.ignoreWip", value = "false")
+  public void reviewersAddedToWipChangeAreNotNotified() throws Exception {
+    createFilters(filter("*").reviewer(user));
+    sender.clear();
+    String changeId = createChange().getChangeId();
+    assertThat(reviewersFor(changeId)).containsExactlyElementsIn(ImmutableSet.of(user.id()));
+    assertThat(recipients()).contains(user.email());
+
+    sender.clear();
+    PushOneCommit.Result r = createChange("refs/for/master%wip");
+    assertThat(r.getChange().change().isWorkInProgress()).isTrue();
+    assertThat(reviewersFor(r.getChangeId()))
+        .containsExactlyElementsIn(ImmutableSet.of(user.id()));
+    assertThat(recipients()).doesNotContain(user.email());
+  }
+
   @Test
   public void reviewerAddedOnPrivateBitFlip() throws Exception {
     createFilters(filter("*").reviewer(user));
@@ -177,6 +226,31 @@ public class ReviewersIT extends AbstractReviewersPluginTest {
     assertThat(gApi.changes().id(changeId).get().reviewers.get(CC)).isNull();
   }
 
+  @Test
+  @GlobalPluginConfig(pluginName = "reviewers", name = "reviewers.maxAccounts", value = "1")
+  public void oversizedFilterIsRejected() throws Exception {
+    TestAccount user2 = accountCreator.user2();
+    TestAccount user3 = accountCreator.create("user3", "user3@example.com", "User3", null);
+    createFilters(filter("*").reviewer(user).cc(user2), filter("branch:master").reviewer(user3));
+    String changeId = createChange().getChangeId();
+    assertThat(reviewersFor(changeId)).containsExactlyElementsIn(ImmutableSet.of(user3.id()));
+    assertThat(gApi.changes().id(changeId).get().reviewers.get(CC)).isNull();
+  }
+
+  @Test
+  @GlobalPluginConfig(pluginName = "reviewers", name = "reviewers.maxAccounts", value = "1")
+  @GlobalPluginConfig(
+      pluginName = "reviewers",
+      name = "reviewers.oversizedPolicy",
+      value = "SAMPLE")
+  public void oversizedFilterIsSampled() throws Exception {
+    TestAccount user2 = accountCreator.user2();
+    createFilters(filter("*").reviewer(user).cc(user2));
+    String changeId = createChange().getChangeId();
+    assertThat(reviewersFor(changeId)).containsExactlyElementsIn(ImmutableSet.of(user.id()));
+    assertThat(gApi.changes().id(changeId).get().reviewers.get(CC)).isNull();
+  }
+
   @Test
   @UseLocalDisk
   @GlobalPluginConfig(pluginName = "reviewers", name = "reviewers.mergeFilters", value = "false")
@@ -191,6 +265,70 @@ public class ReviewersIT extends AbstractReviewersPluginTest {
     assertThat(reviewersFor(changeId)).containsExactlyElementsIn(ImmutableSet.of(user2.id()));
   }
 
+  @Test
+  @UseLocalDisk
+  public void childFiltersFollowUpdatesOfParent() throws Exception {
+    TestAccount user2 = accountCreator.user2();
+    Project.NameKey childProject = projectOperations.newProject().parent(project).create();
+    TestRepository<?> metaConfig = checkoutRefsMetaConfig(cloneProject(childProject));
+    createFiltersFor(metaConfig, filter("*").cc(user2));
+    createFilters(filter("*").reviewer(user));
+    FilterSnapshotCache snapshots =
+        plugin.getSysInjector().getInstance(FilterSnapshotCache.class);
+
+    CompiledFilter f = Iterables.getOnlyElement(snapshots.get(childProject).filters());
+    assertThat(f.reviewers()).containsExactly(user.email());
+    assertThat(f.ccs()).containsExactly(user2.email());
+
+    createFilters(filter("*").reviewer(user2));
+    f = Iterables.getOnlyElement(snapshots.get(childProject).filters());
+    assertThat(f.reviewers()).containsExactly(user2.email());
+    assertThat(f.ccs()).containsExactly(user2.email());
+  }
+
+  @Test
+  public void filterStats() throws Exception {
+    createFilters(filter("*").reviewer(user), filter("file:^b/.*").cc(user));
+    createChange();
+    FilterStats stats = plugin.getSysInjector().getInstance(FilterStats.class);
+    FilterSnapshot snapshot =
+        plugin.getSysInjector().getInstance(FilterSnapshotCache.class).get(project);
+
+    List<FilterStatsInfo> infos = stats.get(project, snapshot.filters());
+    assertThat(infos).hasSize(2);
+    assertThat(infos.get(0).filter).isEqualTo("*");
+    assertThat(infos.get(0).evaluations).isEqualTo(1);
+    assertThat(infos.get(0).matches).isEqualTo(1);
+    assertThat(infos.get(0).lastMatched).isNotNull();
+    assertThat(infos.get(1).filter).isEqualTo("file:^b/.*");
+    assertThat(infos.get(1).evaluations).isEqualTo(1);
+    assertThat(infos.get(1).matches).isEqualTo(0);
+    assertThat(infos.get(1).lastMatched).isNull();
+
+    stats.reset(project);
+    assertThat(stats.get(project, snapshot.filters()).get(0).evaluations).isEqualTo(0);
+  }
+
+  @Test
+  public void ageFilterIsEvaluatedAtTheTimeOfMatching() throws Exception {
+    createFilters(filter("age:1h").reviewer(user));
+    TestTimeUtil.resetWithClockStep(1, TimeUnit.SECONDS);
+    try {
+      PushOneCommit.Result r = createChange();
+      ReviewersFilterUtil filterUtil =
+          plugin.getSysInjector().getInstance(ReviewersFilterUtil.class);
+      FilterSnapshot snapshot =
+          plugin.getSysInjector().getInstance(FilterSnapshotCache.class).get(project);
+      assertThat(filterUtil.evaluate(r.getChange(), snapshot).reviewers()).isEmpty();
+
+      TestTimeUtil.incrementClock(2, TimeUnit.HOURS);
+      assertThat(filterUtil.evaluate(r.getChange(), snapshot).reviewers())
+          .containsExactly(user.email());
+    } finally {
+      TestTimeUtil.useSystemTime();
+    }
+  }
+
   private void addReviewer(String changeId, TestAccount user, ReviewerState state)
       throws Exception {
     ReviewerInput input = new ReviewerInput();
@@ -214,6 +352,13 @@ public class ReviewersIT extends AbstractReviewersPluginTest {
         .collect(toSet());
   }
 
+  private List<String> recipients() {
+    return sender.getMessages().stream()
+        .flatMap(m -> m.rcpt().stream())
+        .map(Address::email)
+        .collect(toList());
+  }
+
   private void assertNoReviewersAddedFor(String changeId) throws Exception {
     assertThat(gApi.changes().id(changeId).get().reviewers.get(REVIEWER)).isNull();
     assertThat(gApi.changes().id(changeId).get().reviewers.get(CC)).isNull();
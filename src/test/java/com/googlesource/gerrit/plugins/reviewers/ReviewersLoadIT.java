@@ -0,0 +1,237 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.gerrit.extensions.client.ReviewerState.REVIEWER;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.acceptance.NoHttpd;
+import com.google.gerrit.acceptance.PushOneCommit;
+import com.google.gerrit.acceptance.TestPlugin;
+import com.google.gerrit.acceptance.UseLocalDisk;
+import com.google.gerrit.acceptance.config.GlobalPluginConfig;
+import com.google.gerrit.acceptance.testsuite.account.AccountOperations;
+import com.google.gerrit.acceptance.testsuite.group.GroupOperations;
+import com.google.gerrit.entities.Account;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.extensions.common.AccountInfo;
+import com.google.gerrit.server.util.ManualRequestContext;
+import com.google.gerrit.server.util.OneOffRequestContext;
+import com.google.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jgit.junit.TestRepository;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Test;
+
+/**
+ * Load test of adding reviewers, from upload until the reviewers are added, under each {@link
+ * Module.ThreadPool}.
+ *
+ * <p>Changes are pushed concurrently to the leaf of a hierarchy of projects that each configure
+ * filters, inherited and merged down to the leaf, that add large groups as reviewers. The latency
+ * and throughput are logged; the test only asserts that the reviewers of all changes were added.
+ *
+ * <p>Not part of the default test target; run it with {@code bazel test
+ * plugins/reviewers:reviewers_load_tests}. The size of the load can be adjusted with the system
+ * properties {@code reviewers.load.depth}, {@code .filters}, {@code .groupSize}, {@code .threads}
+ * and {@code .changes} (per thread). The number of accounts added to a change is not limited, so
+ * that the groups are added whatever their size.
+ */
+@NoHttpd
+@UseLocalDisk
+@TestPlugin(name = "reviewers", sysModule = "com.googlesource.gerrit.plugins.reviewers.Module")
+public class ReviewersLoadIT extends AbstractReviewersPluginTest {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private static final int DEPTH = Integer.getInteger("reviewers.load.depth", 5);
+  private static final int FILTERS = Integer.getInteger("reviewers.load.filters", 50);
+  private static final int GROUP_SIZE = Integer.getInteger("reviewers.load.groupSize", 100);
+  private static final int THREADS = Integer.getInteger("reviewers.load.threads", 4);
+  private static final int CHANGES = Integer.getInteger("reviewers.load.changes", 25);
+  private static final long TIMEOUT_MS = TimeUnit.MINUTES.toMillis(5);
+  private static final long POLL_MS = 10;
+
+  @Inject private AccountOperations accountOperations;
+  @Inject private GroupOperations groupOperations;
+  @Inject private OneOffRequestContext requestContext;
+
+  @Test
+  @GlobalPluginConfig(pluginName = "reviewers", name = "reviewers.threadPool", value = "DIRECT")
+  @GlobalPluginConfig(pluginName = "reviewers", name = "reviewers.maxAccounts", value = "0")
+  public void loadDirect() throws Exception {
+    runLoad(Module.ThreadPool.DIRECT);
+  }
+
+  @Test
+  @GlobalPluginConfig(
+      pluginName = "reviewers",
+      name = "reviewers.threadPool",
+      value = "WORK_QUEUE")
+  @GlobalPluginConfig(pluginName = "reviewers", name = "reviewers.coalesceWindow", value = "100ms")
+  @GlobalPluginConfig(pluginName = "reviewers", name = "reviewers.maxAccounts", value = "0")
+  public void loadWorkQueue() throws Exception {
+    runLoad(Module.ThreadPool.WORK_QUEUE);
+  }
+
+  @Test
+  @GlobalPluginConfig(pluginName = "reviewers", name = "reviewers.threadPool", value = "FAN_OUT")
+  @GlobalPluginConfig(pluginName = "reviewers", name = "reviewers.maxAccounts", value = "0")
+  public void loadFanOut() throws Exception {
+    runLoad(Module.ThreadPool.FAN_OUT);
+  }
+
+  private void runLoad(Module.ThreadPool threadPool) throws Exception {
+    Project.NameKey leaf = createHierarchy(createGroupMembers());
+
+    ConcurrentLinkedQueue<Upload> uploads = new ConcurrentLinkedQueue<>();
+    ExecutorService pushers = Executors.newFixedThreadPool(THREADS);
+    List<Future<?>> pushes = new ArrayList<>();
+    try {
+      for (int t = 0; t < THREADS; t++) {
+        int thread = t;
+        TestRepository<?> repo = cloneProject(leaf);
+        pushes.add(pushers.submit(() -> push(repo, thread, uploads)));
+      }
+      List<Long> latencies = awaitReviewers(uploads, THREADS * CHANGES);
+      for (Future<?> push : pushes) {
+        push.get();
+      }
+      report(threadPool, uploads, latencies);
+    } finally {
+      pushers.shutdownNow();
+    }
+  }
+
+  private ImmutableSet<Account.Id> createGroupMembers() throws Exception {
+    ImmutableSet.Builder<Account.Id> members = ImmutableSet.builder();
+    for (int i = 0; i < GROUP_SIZE; i++) {
+      members.add(accountOperations.newAccount().create());
+    }
+    return members.build();
+  }
+
+  /* Every level configures a filter per directory that adds its own group, which all have the
+   * same members, plus filters that don't match any change. */
+  private Project.NameKey createHierarchy(ImmutableSet<Account.Id> members) throws Exception {
+    Project.NameKey parent = project;
+    for (int level = 0; level < DEPTH; level++) {
+      Project.NameKey child = projectOperations.newProject().parent(parent).create();
+      String group = groupOperations.newGroup().members(members).create().get();
+      List<TestFilter> filters = new ArrayList<>();
+      filters.add(filter("file:^dir" + level + "/.*").reviewer(group));
+      for (int i = 1; i < FILTERS; i++) {
+        filters.add(filter("file:^unused" + level + "/" + i + "/.*").reviewer(group));
+      }
+      createFiltersFor(
+          checkoutRefsMetaConfig(cloneProject(child)), filters.toArray(new TestFilter[0]));
+      parent = child;
+    }
+    return parent;
+  }
+
+  private void push(TestRepository<?> repo, int thread, Collection<Upload> uploads) {
+    try (ManualRequestContext ctx = requestContext.openAs(admin.id())) {
+      ObjectId head = repo.getRepository().resolve("HEAD");
+      for (int i = 0; i < CHANGES; i++) {
+        String file = "dir" + (i % DEPTH) + "/file-" + thread + "-" + i + ".txt";
+        long start = System.nanoTime();
+        PushOneCommit.Result r =
+            pushFactory
+                .create(admin.newIdent(), repo, "Change " + file, file, file)
+                .to("refs/for/master");
+        r.assertOkStatus();
+        uploads.add(new Upload(r.getChangeId(), start));
+        repo.reset(head);
+      }
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /* Polls the uploaded changes until their reviewers were added, and returns the latencies. */
+  private List<Long> awaitReviewers(ConcurrentLinkedQueue<Upload> uploads, int expected)
+      throws Exception {
+    Map<String, Upload> pending = new HashMap<>();
+    List<Long> latencies = new ArrayList<>(expected);
+    long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+    int seen = 0;
+    while (latencies.size() < expected && System.currentTimeMillis() < deadline) {
+      for (Upload u : uploads) {
+        if (u.addedNanos == 0 && !pending.containsKey(u.changeId)) {
+          pending.put(u.changeId, u);
+          seen++;
+        }
+      }
+      for (Upload u : new ArrayList<>(pending.values())) {
+        Collection<AccountInfo> reviewers =
+            gApi.changes().id(u.changeId).get().reviewers.get(REVIEWER);
+        if (reviewers != null && reviewers.size() == GROUP_SIZE) {
+          u.addedNanos = System.nanoTime();
+          latencies.add(TimeUnit.NANOSECONDS.toMillis(u.addedNanos - u.startNanos));
+          pending.remove(u.changeId);
+        }
+      }
+      if (seen < expected || !pending.isEmpty()) {
+        Thread.sleep(POLL_MS);
+      }
+    }
+    assertThat(latencies).hasSize(expected);
+    return latencies;
+  }
+
+  private void report(
+      Module.ThreadPool threadPool, Collection<Upload> uploads, List<Long> latencies) {
+    latencies.sort(null);
+    long first = uploads.stream().mapToLong(u -> u.startNanos).min().getAsLong();
+    long last = uploads.stream().mapToLong(u -> u.addedNanos).max().getAsLong();
+    double seconds = (last - first) / 1e9;
+    logger.atInfo().log(
+        "%s: %d changes in %.1f s (%.1f changes/s) with %d pushers, %d levels of %d filters and"
+            + " groups of %d accounts; upload to reviewers added: p50 %d ms, p95 %d ms, max %d ms",
+        threadPool,
+        latencies.size(),
+        seconds,
+        latencies.size() / seconds,
+        THREADS,
+        DEPTH,
+        FILTERS,
+        GROUP_SIZE,
+        latencies.get(latencies.size() / 2),
+        latencies.get((int) (latencies.size() * 0.95)),
+        latencies.get(latencies.size() - 1));
+  }
+
+  private static class Upload {
+    final String changeId;
+    final long startNanos;
+    volatile long addedNanos;
+
+    Upload(String changeId, long startNanos) {
+      this.changeId = changeId;
+      this.startNanos = startNanos;
+    }
+  }
+}
@@ -17,13 +17,15 @@ package com.googlesource.gerrit.plugins.reviewers;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.collect.ImmutableSet;
-import com.google.gerrit.acceptance.AbstractDaemonTest;
+import com.google.gerrit.acceptance.LightweightPluginDaemonTest;
 import com.google.gerrit.acceptance.NoHttpd;
 import com.google.gerrit.acceptance.TestAccount;
+import com.google.gerrit.acceptance.TestPlugin;
 import com.google.gerrit.acceptance.config.GerritConfig;
 import com.google.gerrit.acceptance.testsuite.group.GroupOperations;
 import com.google.gerrit.acceptance.testsuite.request.RequestScopeOperations;
 import com.google.gerrit.entities.Account;
+import com.google.gerrit.entities.AccountGroup;
 import com.google.inject.Inject;
 import java.util.Collections;
 import java.util.Set;
@@ -31,14 +33,18 @@ import org.junit.Before;
 import org.junit.Test;
 
 @NoHttpd
-public class ReviewersResolverIT extends AbstractDaemonTest {
+@TestPlugin(
+    name = "reviewers",
+    sysModule = "com.googlesource.gerrit.plugins.reviewers.Module$ForTest")
+public class ReviewersResolverIT extends LightweightPluginDaemonTest {
   @Inject private RequestScopeOperations requestScopeOperations;
   @Inject private GroupOperations groupOperations;
-  @Inject private ReviewersResolver resolver;
+  private ReviewersResolver resolver;
   private int change;
 
   @Before
   public void setUp() {
+    resolver = plugin.getSysInjector().getInstance(ReviewersResolver.class);
     change = 1;
   }
 
@@ -115,6 +121,66 @@ public class ReviewersResolverIT extends AbstractDaemonTest {
     assertThat(reviewers).containsExactly(system.id(), foo.id(), bar.id(), baz.id(), qux.id());
   }
 
+  @Test
+  public void groupResolveAfterMembershipChange() throws Exception {
+    String group = "group";
+    AccountGroup.UUID uuid = groupOperations.newGroup().name(group).create();
+    TestAccount foo = createTestAccount("foo", group);
+
+    Set<Account.Id> reviewers =
+        resolver.resolve(
+            ImmutableSet.of(group),
+            project,
+            change,
+            gApi.accounts().id(admin.id().get()).get(),
+            false);
+    assertThat(reviewers).containsExactly(foo.id());
+
+    groupOperations.group(uuid).forUpdate().addMember(user.id()).update();
+    reviewers =
+        resolver.resolve(
+            ImmutableSet.of(group),
+            project,
+            change,
+            gApi.accounts().id(admin.id().get()).get(),
+            false);
+    assertThat(reviewers).containsExactly(foo.id(), user.id());
+
+    gApi.accounts().id(foo.id().get()).setActive(false);
+    reviewers =
+        resolver.resolve(
+            ImmutableSet.of(group),
+            project,
+            change,
+            gApi.accounts().id(admin.id().get()).get(),
+            false);
+    assertThat(reviewers).containsExactly(user.id());
+  }
+
+  @Test
+  public void accountResolveAfterAccountCreation() throws Exception {
+    String name = name("late");
+    String email = name + "@example.com";
+    Set<Account.Id> reviewers =
+        resolver.resolve(
+            ImmutableSet.of(email),
+            project,
+            change,
+            gApi.accounts().id(admin.id().get()).get(),
+            false);
+    assertThat(reviewers).isEmpty();
+
+    TestAccount late = accountCreator.create(name, email, name + " full name", null);
+    reviewers =
+        resolver.resolve(
+            ImmutableSet.of(email),
+            project,
+            change,
+            gApi.accounts().id(admin.id().get()).get(),
+            false);
+    assertThat(reviewers).containsExactly(late.id());
+  }
+
   @Test
   public void accountExactResolve() throws Exception {
     String username = "user1";
@@ -0,0 +1,49 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers.config;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+public class FilePatternMatcherTest {
+  @Test
+  public void prefixPattern() {
+    assertThat(FilePatternMatcher.isPrefixPattern("^lib/.*")).isTrue();
+    assertThat(FilePatternMatcher.literalPrefix("^lib/.*")).isEqualTo("lib/");
+    CompiledFilter filter =
+        new CompiledFilter("file:^lib/.*", ImmutableSet.of(), ImmutableSet.of(), 0);
+    assertThat(filter.isComplete()).isTrue();
+  }
+
+  @Test
+  public void automatonOperatorsAreNotLiteral() {
+    /* For Gerrit, @ matches any string: node_modules/x/types/a.ts matches. */
+    String pattern = "^node_modules/@types/.*";
+    assertThat(FilePatternMatcher.isPrefixPattern(pattern)).isFalse();
+    assertThat(FilePatternMatcher.literalPrefix(pattern)).isEqualTo("node_modules/");
+    assertThat(FilePatternMatcher.literalPrefix("^a~b.*")).isEqualTo("a");
+    assertThat(FilePatternMatcher.literalPrefix("^src/<1-9>/.*")).isEqualTo("src/");
+
+    CompiledFilter filter =
+        new CompiledFilter("file:" + pattern, ImmutableSet.of(), ImmutableSet.of(), 0);
+    assertThat(filter.isComplete()).isFalse();
+    FilePatternMatcher matcher = FilePatternMatcher.create(ImmutableSet.of(pattern));
+    assertThat(matcher.match(ImmutableSet.of("node_modules/x/types/a.ts")).matches(filter))
+        .isTrue();
+    assertThat(matcher.match(ImmutableSet.of("lib/a.ts")).matches(filter)).isFalse();
+  }
+}
@@ -0,0 +1,43 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers.config;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+public class FilterConstraintsTest {
+  @Test
+  public void userIndependentQueries() {
+    assertThat(FilterConstraints.dependsOnUser("*")).isFalse();
+    assertThat(FilterConstraints.dependsOnUser("branch:master file:^lib/.*")).isFalse();
+    assertThat(FilterConstraints.dependsOnUser("is:open -is:wip (topic:a OR hashtag:b)"))
+        .isFalse();
+  }
+
+  @Test
+  public void queriesNotKnownToBeUserIndependent() {
+    assertThat(FilterConstraints.dependsOnUser("owner:self")).isTrue();
+    assertThat(FilterConstraints.dependsOnUser("branch:master is:visible")).isTrue();
+    assertThat(FilterConstraints.dependsOnUser("-is:ignored")).isTrue();
+    assertThat(FilterConstraints.dependsOnUser("star:ignore OR file:a")).isTrue();
+    assertThat(FilterConstraints.dependsOnUser("query:mine")).isTrue();
+    assertThat(FilterConstraints.dependsOnUser("label:Code-Review=+2")).isTrue();
+    assertThat(FilterConstraints.dependsOnUser("foo")).isTrue();
+    assertThat(FilterConstraints.dependsOnUser("branch:master age:1d")).isTrue();
+    assertThat(FilterConstraints.dependsOnUser("before:2026-01-01")).isTrue();
+    assertThat(FilterConstraints.dependsOnUser("branch:(")).isTrue();
+  }
+}
@@ -0,0 +1,76 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers.config;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.entities.Change;
+import com.google.gerrit.entities.Project;
+import com.googlesource.gerrit.plugins.reviewers.config.FilterSnapshotCache.Key;
+import com.googlesource.gerrit.plugins.reviewers.config.FilterSnapshotCache.ProjectFilters;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Test;
+
+public class FilterSerializersTest {
+  private static final Project.NameKey ALL_PROJECTS = Project.nameKey("All-Projects");
+  private static final Project.NameKey PROJECT = Project.nameKey("foo/bar");
+  private static final ObjectId REVISION =
+      ObjectId.fromString("0123456789012345678901234567890123456789");
+  private static final ImmutableList<CompiledFilter> FILTERS =
+      ImmutableList.of(
+          new CompiledFilter("*", ImmutableSet.of("jane"), ImmutableSet.of(), 0),
+          new CompiledFilter(
+              "branch:main file:^lib/.*",
+              ImmutableSet.of("john", "Core Team"),
+              ImmutableSet.of("QA"),
+              10));
+
+  @Test
+  public void key() {
+    FilterSerializers.KeySerializer serializer = new FilterSerializers.KeySerializer();
+    Key key =
+        new Key(
+            PROJECT, ImmutableMap.of(ALL_PROJECTS, ObjectId.zeroId(), PROJECT, REVISION), true);
+    assertThat(serializer.deserialize(serializer.serialize(key))).isEqualTo(key);
+  }
+
+  @Test
+  public void snapshot() {
+    FilterSerializers.SnapshotSerializer serializer = new FilterSerializers.SnapshotSerializer();
+    FilterSnapshot snapshot =
+        serializer.deserialize(serializer.serialize(FilterSnapshot.create(PROJECT, FILTERS)));
+    assertThat(snapshot.project()).isEqualTo(PROJECT);
+    assertThat(snapshot.filters()).isEqualTo(FILTERS);
+    assertThat(snapshot.candidates("refs/heads/main", Change.Status.NEW)).isEqualTo(FILTERS);
+    assertThat(snapshot.candidates("refs/heads/stable", Change.Status.NEW))
+        .containsExactly(FILTERS.get(0));
+
+    assertThat(serializer.deserialize(serializer.serialize(FilterSnapshot.EMPTY)))
+        .isSameInstanceAs(FilterSnapshot.EMPTY);
+  }
+
+  @Test
+  public void projectFilters() {
+    FilterSerializers.ProjectFiltersSerializer serializer =
+        new FilterSerializers.ProjectFiltersSerializer();
+    ProjectFilters filters =
+        serializer.deserialize(serializer.serialize(new ProjectFilters(REVISION, FILTERS)));
+    assertThat(filters.revision()).isEqualTo(REVISION);
+    assertThat(filters.filters()).isEqualTo(FILTERS);
+  }
+}
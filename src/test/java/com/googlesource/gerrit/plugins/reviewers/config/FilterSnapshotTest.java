@@ -0,0 +1,54 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.reviewers.config;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.entities.Change;
+import com.google.gerrit.entities.Project;
+import org.junit.Test;
+
+public class FilterSnapshotTest {
+  private static final Project.NameKey PROJECT = Project.nameKey("foo/bar");
+
+  @Test
+  public void candidatesAreInConfigurationOrder() {
+    CompiledFilter main = filter("branch:main");
+    CompiledFilter release = filter("branch:^release/.*");
+    CompiledFilter all = filter("*");
+    CompiledFilter mainOrStable = filter("branch:main OR branch:stable");
+    CompiledFilter lib = filter("file:^lib/.*");
+    CompiledFilter merged = filter("branch:main is:merged");
+    FilterSnapshot snapshot =
+        FilterSnapshot.create(
+            PROJECT, ImmutableList.of(main, release, all, mainOrStable, lib, merged));
+
+    assertThat(snapshot.candidates("refs/heads/main", Change.Status.NEW))
+        .containsExactly(main, all, mainOrStable, lib)
+        .inOrder();
+    assertThat(snapshot.candidates("refs/heads/release/1.0", Change.Status.NEW))
+        .containsExactly(release, all, lib)
+        .inOrder();
+    assertThat(snapshot.candidates("refs/heads/main", Change.Status.MERGED))
+        .containsExactly(main, all, mainOrStable, lib, merged)
+        .inOrder();
+  }
+
+  private static CompiledFilter filter(String filter) {
+    return new CompiledFilter(filter, ImmutableSet.of("jane"), ImmutableSet.of(), 0);
+  }
+}